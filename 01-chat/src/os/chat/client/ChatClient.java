@@ -2,6 +2,7 @@ package os.chat.client;
 
 
 import os.chat.server.ChatServer;
+import os.chat.server.CompressedMessage;
 import os.chat.server.ChatServerInterface;
 import os.chat.server.ChatServerManager;
 import os.chat.server.ChatServerManagerInterface;
@@ -16,7 +17,7 @@ import java.util.Map;
 import java.util.Vector;
 
 
-public class ChatClient implements CommandsFromWindow, CommandsFromServer {
+public class ChatClient implements CommandsFromWindow, CompressedCommandsFromServer {
 
     /**
      * The name of the user of this client
@@ -32,6 +33,14 @@ public class ChatClient implements CommandsFromWindow, CommandsFromServer {
     private Registry registry;
     private ChatServerManagerInterface server;
     private final Map<String, ChatServerInterface> rooms;
+    /**
+     * Length from which each room wants to receive compressed messages
+     */
+    private final Map<String, Integer> roomCompressionThresholds;
+    /**
+     * Length from which this client wants to receive compressed messages
+     */
+    private final int compressionThreshold;
     private CommandsFromServer stub;
 
     /**
@@ -43,6 +52,8 @@ public class ChatClient implements CommandsFromWindow, CommandsFromServer {
         this.window = window;
         this.userName = userName;
         this.rooms = new HashMap<>();
+        this.roomCompressionThresholds = new HashMap<>();
+        this.compressionThreshold = CompressedMessage.thresholdFromSystemProperty();
 
         try {
             // Local server
@@ -62,7 +73,13 @@ public class ChatClient implements CommandsFromWindow, CommandsFromServer {
     @Override
     public void sendText(String roomName, String message) {
         try {
-            getRoom(roomName).publish(message, userName);
+            ChatServerInterface room = getRoom(roomName);
+            int threshold = roomCompressionThresholds.get(roomName);
+            if (threshold >= 0 && message.length() >= threshold && CompressedMessage.isCompressible(message)) {
+                room.publish(CompressedMessage.compress(message), userName);
+            } else {
+                room.publish(message, userName);
+            }
         } catch (RemoteException | NotBoundException e) {
             e.printStackTrace();
         }
@@ -129,11 +146,24 @@ public class ChatClient implements CommandsFromWindow, CommandsFromServer {
         window.publish(roomName, message);
     }
 
+    @Override
+    public void receiveCompressedMsg(String roomName, CompressedMessage message) {
+        window.publish(roomName, message.inflate());
+    }
+
+    @Override
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
     private ChatServerInterface getRoom(String roomName) throws RemoteException, NotBoundException {
         if (rooms.containsKey(roomName)) {
             return rooms.get(roomName);
         } else {
             ChatServerInterface room = (ChatServerInterface) registry.lookup(ChatServer.CHAT_SERVER_RMI_REG_PREFIX + roomName);
+            // Compress our messages only if both sides agree to
+            int threshold = compressionThreshold < 0 ? -1 : room.getCompressionThreshold();
+            roomCompressionThresholds.put(roomName, threshold < 0 ? -1 : Math.max(threshold, compressionThreshold));
             rooms.put(roomName, room);
             return room;
         }
@@ -0,0 +1,28 @@
+package os.chat.client;
+
+
+import os.chat.server.CompressedMessage;
+
+import java.rmi.RemoteException;
+
+/**
+ * Extension of CommandsFromServer for clients able to receive compressed messages.
+ * When the stub registered to a room implements this interface, the room sends messages at least
+ * as long as the client's threshold in compressed form.
+ */
+public interface CompressedCommandsFromServer extends CommandsFromServer {
+
+    /**
+     * Publish a compressed message in a chat room of the GUI interface.
+     *
+     * @param roomName The name of the chat room
+     * @param message  The message to display
+     */
+    public void receiveCompressedMsg(String roomName, CompressedMessage message) throws RemoteException;
+
+    /**
+     * @return The length (in characters) from which this client wants messages compressed, or a negative
+     * value to receive every message in plain text
+     */
+    public int getCompressionThreshold() throws RemoteException;
+}
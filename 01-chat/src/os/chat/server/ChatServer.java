@@ -1,13 +1,22 @@
 package os.chat.server;
 
 import os.chat.client.CommandsFromServer;
+import os.chat.client.CompressedCommandsFromServer;
+import os.chat.server.monitoring.ChatRoomMetrics;
+import os.chat.server.monitoring.ClientEvictedEvent;
+import os.chat.server.monitoring.ClientRegistrationEvent;
+import os.chat.server.monitoring.DeliveryEvent;
+import os.chat.server.monitoring.PublishEvent;
 
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
@@ -30,15 +39,57 @@ public class ChatServer implements ChatServerInterface {
      * List of clients that want to be notified whenever a message is sent
      */
     private final Vector<CommandsFromServer> registeredClients;
+    /**
+     * Counters and histograms published through JMX
+     */
+    private final ChatRoomMetrics metrics;
+    /**
+     * How messages are delivered to the clients
+     */
+    private final DeliveryMode deliveryMode;
+    /**
+     * Factory of the session threads, null in SEQUENTIAL mode
+     */
+    private final ThreadFactory sessionThreadFactory;
+    /**
+     * Delivery session of each registered client, unused in SEQUENTIAL mode
+     */
+    private final Map<CommandsFromServer, ClientSession> sessions;
+    /**
+     * Compression threshold negotiated with each client able to receive compressed messages
+     */
+    private final Map<CommandsFromServer, Integer> compressionThresholds;
+    /**
+     * Length from which clients are asked to publish compressed messages
+     */
+    private final int compressionThreshold;
 
     /**
-     * Constructor: initializes the chat room and register it to the RMI registry
+     * Constructor: initializes the chat room with the delivery mode selected by the system properties
+     * and register it to the RMI registry
      *
      * @param roomName The name of the room hosted by this ChatServer
      */
     public ChatServer(String roomName) {
+        this(roomName, DeliveryMode.fromSystemProperty());
+    }
+
+    /**
+     * Constructor: initializes the chat room and register it to the RMI registry
+     *
+     * @param roomName     The name of the room hosted by this ChatServer
+     * @param deliveryMode How messages are delivered to the clients
+     */
+    public ChatServer(String roomName, DeliveryMode deliveryMode) {
         this.roomName = roomName;
         this.registeredClients = new Vector<>();
+        this.deliveryMode = deliveryMode;
+        this.sessionThreadFactory = deliveryMode.newSessionThreadFactory(roomName);
+        this.sessions = new ConcurrentHashMap<>();
+        this.compressionThresholds = new ConcurrentHashMap<>();
+        this.compressionThreshold = CompressedMessage.thresholdFromSystemProperty();
+        this.metrics = new ChatRoomMetrics(roomName, registeredClients::size);
+        metrics.register();
 
         // Register the ChatServer to the RMI registry
         try {
@@ -53,34 +104,221 @@ public class ChatServer implements ChatServerInterface {
 
     @Override
     public void publish(String message, String publisher) {
-        /*
-          Iterate over the registeredClients and send them the message.
-          We use the Java Iterator syntax, because it's possible to remove an object
-          while iterating with it.
-         */
-        for (Iterator<CommandsFromServer> iterator = registeredClients.iterator(); iterator.hasNext(); ) {
-            CommandsFromServer client = iterator.next();
-            try {
-                // Add the name of the publisher to the message
-                String messageToDisplay = publisher + "> " + message;
-                client.receiveMsg(roomName, messageToDisplay);
-            } catch (RemoteException e) {
-                System.err.println("Client unreachable, removing...");
-                iterator.remove();
+        // Add the name of the publisher to the message
+        publish(OutgoingMessage.plain(publisher + "> " + message));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException If the message cannot be decompressed: it is not delivered to anyone
+     */
+    @Override
+    public void publish(CompressedMessage message, String publisher) {
+        OutgoingMessage outgoing;
+        try {
+            // Add the name of the publisher to the message, without touching the compressed body
+            outgoing = OutgoingMessage.compressed(message.withPrefix(publisher + "> "));
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        publish(outgoing);
+    }
+
+    @Override
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Send a message to every registered client
+     *
+     * @param messageToDisplay The message, prefixed with the name of its publisher
+     */
+    private void publish(OutgoingMessage messageToDisplay) {
+        PublishEvent publishEvent = new PublishEvent();
+        publishEvent.begin();
+        long start = System.nanoTime();
+        int recipients = 0;
+        int evicted = 0;
+        int queued = 0;
+        int dropped = 0;
+
+        if (deliveryMode == DeliveryMode.SEQUENTIAL) {
+            /*
+              Iterate over the registeredClients and send them the message.
+              We use the Java Iterator syntax, because it's possible to remove an object
+              while iterating with it.
+             */
+            for (Iterator<CommandsFromServer> iterator = registeredClients.iterator(); iterator.hasNext(); ) {
+                CommandsFromServer client = iterator.next();
+                RemoteException failure = send(client, messageToDisplay);
+                if (failure == null) {
+                    recipients++;
+                } else {
+                    // Client unreachable, removing...
+                    iterator.remove();
+                    evicted++;
+                    clientEvicted(client, failure);
+                }
+            }
+        } else {
+            // Only queue the message, each session delivers it from its own thread
+            for (ClientSession session : sessions.values()) {
+                if (session.enqueue(messageToDisplay)) {
+                    queued++;
+                } else {
+                    dropped++;
+                    metrics.messageDropped();
+                }
             }
         }
+
+        if (deliveryMode == DeliveryMode.SEQUENTIAL) {
+            metrics.publishCompleted(System.nanoTime() - start);
+        } else {
+            metrics.publishQueued(System.nanoTime() - start);
+        }
+        publishEvent.end();
+        if (publishEvent.shouldCommit()) {
+            publishEvent.room = roomName;
+            publishEvent.recipients = recipients;
+            publishEvent.evicted = evicted;
+            publishEvent.queued = queued;
+            publishEvent.dropped = dropped;
+            publishEvent.commit();
+        }
     }
 
     @Override
     public void register(CommandsFromServer client) {
+        negotiateCompression(client);
         registeredClients.add(client);
-        System.out.println("Client registered");
+        if (sessionThreadFactory != null) {
+            ClientSession previous = sessions.put(client, new ClientSession(this, client, sessionThreadFactory));
+            if (previous != null) {
+                previous.close();
+            }
+        }
+        registrationChanged(client, true);
     }
 
     @Override
     public void unregister(CommandsFromServer client) {
         registeredClients.remove(client);
-        System.out.println("Client unregistered");
+        compressionThresholds.remove(client);
+        ClientSession session = sessions.remove(client);
+        if (session != null) {
+            session.close();
+        }
+        registrationChanged(client, false);
+    }
+
+    /**
+     * Ask a client whether, and from which length, it wants to receive compressed messages
+     *
+     * @param client The client that registers
+     */
+    private void negotiateCompression(CommandsFromServer client) {
+        if (client instanceof CompressedCommandsFromServer) {
+            try {
+                int threshold = ((CompressedCommandsFromServer) client).getCompressionThreshold();
+                if (threshold >= 0) {
+                    compressionThresholds.put(client, threshold);
+                }
+            } catch (RemoteException e) {
+                // Leave the client in plain text, the first delivery will tell if it is reachable
+                compressionThresholds.remove(client);
+            }
+        }
+    }
+
+    /**
+     * Deliver a message from a client session, evicting the client if it is unreachable
+     *
+     * @param session The session of the recipient
+     * @param message The message to display
+     * @return true if the message was delivered, false if the session must stop
+     */
+    boolean deliver(ClientSession session, OutgoingMessage message) {
+        CommandsFromServer client = session.getClient();
+        RemoteException failure = send(client, message);
+        if (failure == null) {
+            return true;
+        }
+        // Only evict the client if it did not register again meanwhile, with a new session
+        if (sessions.remove(client, session)) {
+            registeredClients.remove(client);
+            compressionThresholds.remove(client);
+            clientEvicted(client, failure);
+        }
+        return false;
+    }
+
+    /**
+     * Perform the remote call delivering a message to one client, and measure it
+     *
+     * @param client  The recipient
+     * @param message The message to display
+     * @return null on success, or the exception raised by the remote call
+     */
+    private RemoteException send(CommandsFromServer client, OutgoingMessage message) {
+        DeliveryEvent deliveryEvent = new DeliveryEvent();
+        deliveryEvent.begin();
+        long start = System.nanoTime();
+        RemoteException failure = null;
+        try {
+            Integer threshold = compressionThresholds.get(client);
+            if (threshold != null && message.length() >= threshold && message.isCompressible()) {
+                ((CompressedCommandsFromServer) client).receiveCompressedMsg(roomName, message.compressed());
+            } else {
+                client.receiveMsg(roomName, message.text());
+            }
+        } catch (RemoteException e) {
+            failure = e;
+        }
+        metrics.deliveryCompleted(System.nanoTime() - start);
+        deliveryEvent.end();
+        if (deliveryEvent.shouldCommit()) {
+            deliveryEvent.room = roomName;
+            deliveryEvent.client = client.toString();
+            deliveryEvent.succeeded = failure == null;
+            deliveryEvent.commit();
+        }
+        return failure;
+    }
+
+    /**
+     * Account for the eviction of an unreachable client
+     *
+     * @param client The evicted client
+     * @param cause  The exception raised when trying to reach it
+     */
+    private void clientEvicted(CommandsFromServer client, RemoteException cause) {
+        metrics.clientEvicted();
+        ClientEvictedEvent event = new ClientEvictedEvent();
+        if (event.shouldCommit()) {
+            event.room = roomName;
+            event.client = client.toString();
+            event.cause = cause.toString();
+            event.commit();
+        }
+    }
+
+    /**
+     * Emit a JFR event when a client joins or leaves the room
+     *
+     * @param client     The client concerned
+     * @param registered true if the client joined the room, false if it left
+     */
+    private void registrationChanged(CommandsFromServer client, boolean registered) {
+        ClientRegistrationEvent event = new ClientRegistrationEvent();
+        if (event.shouldCommit()) {
+            event.room = roomName;
+            event.client = client.toString();
+            event.registered = registered;
+            event.commit();
+        }
     }
 
 }
@@ -0,0 +1,86 @@
+package os.chat.server;
+
+import os.chat.client.CommandsFromServer;
+
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares the delivery modes of ChatServer.
+ * <p/>
+ * Simulated clients are registered directly (without RMI) and block for a fixed latency in receiveMsg(),
+ * like a remote call to a distant client would. The benchmark measures the time until every client
+ * received every message, and how long the publishers were blocked.
+ * <p/>
+ * Usage: ChatServerBenchmark [clients] [messages] [latency in ms]
+ */
+public class ChatServerBenchmark {
+
+    /**
+     * Client that waits for some time to emulate the network, and counts the messages received
+     */
+    private static class SlowClient implements CommandsFromServer {
+        private final long latencyMillis;
+        private final CountDownLatch remaining;
+
+        SlowClient(long latencyMillis, CountDownLatch remaining) {
+            this.latencyMillis = latencyMillis;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void receiveMsg(String roomName, String message) throws RemoteException {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                throw new RemoteException("interrupted", e);
+            }
+            remaining.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        LocateRegistry.createRegistry(1099);
+        System.out.println(clients + " clients, " + messages + " messages, " + latency + " ms per delivery");
+        for (DeliveryMode mode : DeliveryMode.values()) {
+            run(mode, clients, messages, latency);
+        }
+        System.exit(0);
+    }
+
+    private static void run(DeliveryMode mode, int clients, int messages, long latency) throws InterruptedException {
+        ChatServer server = new ChatServer("benchmark_" + mode.name().toLowerCase(), mode);
+        CountDownLatch remaining = new CountDownLatch(clients * messages);
+        SlowClient[] registered = new SlowClient[clients];
+        int threadsBefore = Thread.activeCount();
+        for (int i = 0; i < clients; i++) {
+            registered[i] = new SlowClient(latency, remaining);
+            server.register(registered[i]);
+        }
+        int sessionThreads = Thread.activeCount() - threadsBefore;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            server.publish("message " + i, "benchmark");
+        }
+        long published = System.nanoTime();
+        if (!remaining.await(10, TimeUnit.MINUTES)) {
+            System.err.println(mode + ": timed out");
+        }
+        long delivered = System.nanoTime();
+
+        System.out.printf("%-16s publishers blocked %8.1f ms, all delivered after %8.1f ms, %6d platform threads%n",
+                mode, (published - start) / 1e6, (delivered - start) / 1e6, sessionThreads);
+
+        for (SlowClient client : registered) {
+            server.unregister(client);
+        }
+    }
+}
@@ -15,6 +15,21 @@ public interface ChatServerInterface extends Remote {
      */
     public void publish(String message, String publisher) throws RemoteException;
 
+    /**
+     * receives a compressed message from a client and send it to all subscribed clients.
+     * The compressed bytes are forwarded as-is to the clients that accept compressed messages.
+     *
+     * @param message   The message to propagate
+     * @param publisher The name of the publishing user
+     */
+    public void publish(CompressedMessage message, String publisher) throws RemoteException;
+
+    /**
+     * @return The length (in characters) from which clients should send their messages compressed,
+     * or a negative value if the room does not want compressed messages
+     */
+    public int getCompressionThreshold() throws RemoteException;
+
     /**
      * registers a new client to the chat room
      *
@@ -1,5 +1,7 @@
 package os.chat.server;
 
+import os.chat.server.monitoring.ChatServerManagerMetrics;
+
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
@@ -26,6 +28,10 @@ public class ChatServerManager implements ChatServerManagerInterface {
      * ChatServer objects managing the different chat rooms
      */
     private final Vector<ChatServer> chatRooms;
+    /**
+     * Room counters published through JMX
+     */
+    private final ChatServerManagerMetrics metrics;
 
     /**
      * Constructor of the ChatServerManager.
@@ -43,6 +49,8 @@ public class ChatServerManager implements ChatServerManagerInterface {
                 add("sports");
             }
         };
+        metrics = new ChatServerManagerMetrics(chatRooms::size);
+        metrics.register();
 
 
         // Register to the RMI registry
@@ -78,6 +86,7 @@ public class ChatServerManager implements ChatServerManagerInterface {
         if (!chatRoomsList.contains(roomName)) {
             chatRooms.add(new ChatServer(roomName));
             chatRoomsList.add(roomName);
+            metrics.roomCreated(roomName);
             return true;
         }
         return false;
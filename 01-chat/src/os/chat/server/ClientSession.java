@@ -0,0 +1,95 @@
+package os.chat.server;
+
+import os.chat.client.CommandsFromServer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Delivery session of one client in a room, used when the room is not in SEQUENTIAL delivery mode.
+ * Messages are queued in a mailbox and delivered in order by the session's own thread, so a slow
+ * client only blocks its own thread instead of the RMI thread of the publisher.
+ * <p/>
+ * The mailbox is bounded by the system property {@value #CAPACITY_PROPERTY}: once a client lags that
+ * many messages behind, the new messages are dropped for it, so that a slow client cannot fill the heap.
+ */
+class ClientSession implements Runnable {
+
+    /**
+     * System property holding the number of messages a session can hold before dropping new ones
+     */
+    static final String CAPACITY_PROPERTY = "os.chat.mailbox.capacity";
+    /**
+     * Default capacity of a mailbox, in messages
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Marker put in the mailbox to stop the session (compared by identity)
+     */
+    private static final OutgoingMessage CLOSE = OutgoingMessage.plain("");
+
+    private final ChatServer server;
+    private final CommandsFromServer client;
+    private final BlockingQueue<OutgoingMessage> mailbox;
+    /**
+     * Set by close(): no message is queued anymore, and the thread stops once the mailbox is empty
+     */
+    private volatile boolean closed;
+
+    /**
+     * Create the session and start its thread
+     *
+     * @param server        The room the client registered to
+     * @param client        The client to deliver messages to
+     * @param threadFactory Factory of the session thread
+     */
+    ClientSession(ChatServer server, CommandsFromServer client, ThreadFactory threadFactory) {
+        this.server = server;
+        this.client = client;
+        this.mailbox = new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY)));
+        threadFactory.newThread(this).start();
+    }
+
+    /**
+     * @return The client this session delivers messages to
+     */
+    CommandsFromServer getClient() {
+        return client;
+    }
+
+    /**
+     * Queue a message for delivery, without blocking
+     *
+     * @param message The message to deliver
+     * @return false if the message was dropped, because the mailbox is full or the session closed
+     */
+    boolean enqueue(OutgoingMessage message) {
+        return !closed && mailbox.offer(message);
+    }
+
+    /**
+     * Stop the session once the messages already queued have been delivered
+     */
+    void close() {
+        closed = true;
+        // If the mailbox is full, the thread is busy and sees the flag once it has emptied it
+        mailbox.offer(CLOSE);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                OutgoingMessage message = mailbox.take();
+                // Stop when asked to, or when the client was evicted
+                if (message == CLOSE || !server.deliver(this, message) || closed && mailbox.isEmpty()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package os.chat.server;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * A chat message whose body travels deflated over RMI.
+ * <p/>
+ * The message is made of a short uncompressed prefix (e.g. "publisher&gt; ") and a compressed body.
+ * Changing the prefix shares the compressed bytes, so a message compressed once by its publisher
+ * can be forwarded to every recipient without being compressed again.
+ * <p/>
+ * Messages are received from clients, so their sizes are checked when they are deserialized and their
+ * body when it is decompressed: a message cannot make the server allocate more than
+ * {@value #MAX_INFLATED_BYTES} bytes.
+ */
+public final class CompressedMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * System property holding the size (in characters) from which messages are compressed
+     */
+    public static final String THRESHOLD_PROPERTY = "os.chat.compression.threshold";
+    /**
+     * Default compression threshold, in characters
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+    /**
+     * Chat messages are compressed on the publish path, so favour speed over ratio
+     */
+    private static final int LEVEL = Deflater.BEST_SPEED;
+    /**
+     * Largest decompressed body accepted, in bytes
+     */
+    public static final int MAX_INFLATED_BYTES = 16 << 20;
+
+    private final String prefix;
+    private final byte[] deflated;
+    private final int inflatedBytes;
+    private final int inflatedChars;
+
+    private CompressedMessage(String prefix, byte[] deflated, int inflatedBytes, int inflatedChars) {
+        this.prefix = prefix;
+        this.deflated = deflated;
+        this.inflatedBytes = inflatedBytes;
+        this.inflatedChars = inflatedChars;
+    }
+
+    /**
+     * @return The compression threshold set by the system property: messages of at least this
+     * number of characters should be compressed. A negative value disables compression.
+     */
+    public static int thresholdFromSystemProperty() {
+        return Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param body A message body
+     * @return true if the body is short enough to be compressed whatever its characters, each taking
+     * at most 3 bytes in UTF-8
+     */
+    public static boolean isCompressible(String body) {
+        return body.length() <= MAX_INFLATED_BYTES / 3;
+    }
+
+    /**
+     * Compress a message body
+     *
+     * @param body The text to compress
+     * @return The compressed message, with an empty prefix
+     * @throws IllegalArgumentException If the body takes more than {@value #MAX_INFLATED_BYTES} bytes
+     */
+    public static CompressedMessage compress(String body) {
+        byte[] input = body.getBytes(StandardCharsets.UTF_8);
+        if (input.length > MAX_INFLATED_BYTES) {
+            throw new IllegalArgumentException("Message too long to be compressed: " + input.length + " bytes");
+        }
+        Deflater deflater = new Deflater(LEVEL);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, input.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return new CompressedMessage("", Arrays.copyOf(buffer, length), input.length, body.length());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Check the sizes sent by the peer before they are used to allocate the decompressed body
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (prefix == null || deflated == null) {
+            throw new InvalidObjectException("Incomplete compressed message");
+        }
+        // Each character takes at least one byte in UTF-8
+        if (inflatedBytes < 0 || inflatedBytes > MAX_INFLATED_BYTES || inflatedChars < 0
+                || inflatedChars > inflatedBytes) {
+            throw new InvalidObjectException("Invalid compressed message size: " + inflatedBytes + " bytes, "
+                    + inflatedChars + " characters");
+        }
+    }
+
+    /**
+     * @param prefix The new uncompressed prefix
+     * @return A message with the same compressed body (shared, not copied) and the given prefix
+     */
+    public CompressedMessage withPrefix(String prefix) {
+        return new CompressedMessage(prefix, deflated, inflatedBytes, inflatedChars);
+    }
+
+    /**
+     * @return The full text of the message: the prefix followed by the decompressed body
+     * @throws IllegalStateException If the body does not decompress to the announced size
+     */
+    public String inflate() {
+        byte[] output = new byte[inflatedBytes];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            int length = 0;
+            while (length < output.length && !inflater.finished()) {
+                int n = inflater.inflate(output, length, output.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != output.length) {
+                throw new IllegalStateException("Truncated compressed message");
+            }
+            // The body must also end there, rather than be cut to the announced size
+            if (!inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+                throw new IllegalStateException("Compressed message longer than announced");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed message", e);
+        } finally {
+            inflater.end();
+        }
+        String body = new String(output, StandardCharsets.UTF_8);
+        if (body.length() != inflatedChars) {
+            throw new IllegalStateException("Compressed message of " + body.length() + " characters instead of "
+                    + inflatedChars);
+        }
+        return prefix + body;
+    }
+
+    /**
+     * @return The length of the full text, in characters, without decompressing it
+     */
+    public int length() {
+        return prefix.length() + inflatedChars;
+    }
+
+    /**
+     * @return The number of compressed bytes carried by this message
+     */
+    public int getCompressedSize() {
+        return deflated.length;
+    }
+}
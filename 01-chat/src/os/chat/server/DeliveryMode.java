@@ -0,0 +1,103 @@
+package os.chat.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * How a ChatServer delivers published messages to its clients.
+ * <p/>
+ * The mode of every room is read from the system property {@value #PROPERTY}
+ * (sequential, platform or virtual), sequential being the default.
+ */
+public enum DeliveryMode {
+
+    /**
+     * The RMI thread calling publish() delivers the message to every client, one after the other
+     */
+    SEQUENTIAL,
+    /**
+     * Each client has a session with its own mailbox, drained by a dedicated platform thread
+     */
+    PLATFORM_THREADS,
+    /**
+     * Each client has a session with its own mailbox, drained by a dedicated virtual thread.
+     * Falls back to platform threads on a JVM without virtual threads.
+     */
+    VIRTUAL_THREADS;
+
+    /**
+     * System property used to select the delivery mode
+     */
+    public static final String PROPERTY = "os.chat.delivery";
+
+    /**
+     * @return The delivery mode selected by the system property, or SEQUENTIAL if unset
+     */
+    public static DeliveryMode fromSystemProperty() {
+        String value = System.getProperty(PROPERTY, "sequential").trim().toLowerCase();
+        switch (value) {
+            case "sequential":
+                return SEQUENTIAL;
+            case "platform":
+                return PLATFORM_THREADS;
+            case "virtual":
+                return VIRTUAL_THREADS;
+            default:
+                throw new IllegalArgumentException("Unknown delivery mode: " + value);
+        }
+    }
+
+    /**
+     * Create the factory used to start the client sessions of a room
+     *
+     * @param roomName The room, used to name the threads
+     * @return A thread factory, or null in SEQUENTIAL mode where no session thread is used
+     */
+    ThreadFactory newSessionThreadFactory(String roomName) {
+        switch (this) {
+            case PLATFORM_THREADS:
+                return platformThreadFactory(roomName);
+            case VIRTUAL_THREADS:
+                ThreadFactory virtual = virtualThreadFactory(roomName);
+                if (virtual == null) {
+                    System.err.println("Virtual threads are not available on this JVM, using platform threads");
+                    return platformThreadFactory(roomName);
+                }
+                return virtual;
+            default:
+                return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String roomName) {
+        final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setName("room_" + roomName + "-session-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Equivalent of {@code Thread.ofVirtual().name(prefix, 0).factory()}, looked up reflectively
+     * so that the server still compiles and runs on JVMs that predate virtual threads.
+     *
+     * @return The factory, or null if virtual threads are not supported
+     */
+    private static ThreadFactory virtualThreadFactory(String roomName) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, "room_" + roomName + "-session-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
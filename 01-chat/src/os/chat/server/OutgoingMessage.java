@@ -0,0 +1,65 @@
+package os.chat.server;
+
+
+/**
+ * A message being delivered to the clients of a room, in plain text, compressed form, or both.
+ * A compressed message is decompressed once, when it is published, so that a corrupted one is
+ * rejected before it reaches any recipient. A plain message is compressed at most once, the first
+ * time a recipient needs it, and then shared by all the other recipients.
+ */
+final class OutgoingMessage {
+
+    private final String text;
+    private CompressedMessage compressed;
+    private final int length;
+
+    private OutgoingMessage(String text, CompressedMessage compressed, int length) {
+        this.text = text;
+        this.compressed = compressed;
+        this.length = length;
+    }
+
+    static OutgoingMessage plain(String text) {
+        return new OutgoingMessage(text, null, text.length());
+    }
+
+    /**
+     * @param compressed A message received compressed
+     * @return The message, with its text
+     * @throws IllegalStateException If the message cannot be decompressed
+     */
+    static OutgoingMessage compressed(CompressedMessage compressed) {
+        return new OutgoingMessage(compressed.inflate(), compressed, compressed.length());
+    }
+
+    /**
+     * @return The length of the message, in characters
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return The message text
+     */
+    String text() {
+        return text;
+    }
+
+    /**
+     * @return true if the message can be sent compressed
+     */
+    synchronized boolean isCompressible() {
+        return compressed != null || CompressedMessage.isCompressible(text);
+    }
+
+    /**
+     * @return The compressed message, compressing it if necessary
+     */
+    synchronized CompressedMessage compressed() {
+        if (compressed == null) {
+            compressed = CompressedMessage.compress(text);
+        }
+        return compressed;
+    }
+}
@@ -0,0 +1,193 @@
+package os.chat.server.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Metrics collected by one ChatServer. Recording methods are called on the publish path and only
+ * touch striped or atomic counters; the JMX getters do the (comparatively expensive) aggregation.
+ */
+public class ChatRoomMetrics implements ChatRoomMetricsMBean {
+
+    /**
+     * JMX domain under which all the chat server MBeans are registered
+     */
+    public static final String JMX_DOMAIN = "os.chat.server";
+
+    private final String roomName;
+    private final IntSupplier clientCount;
+    private final RateMeter publishes;
+    private final LatencyHistogram fanOut;
+    private final LatencyHistogram queuing;
+    private final LatencyHistogram delivery;
+    private final RateMeter evictions;
+    private final RateMeter drops;
+
+    /**
+     * @param roomName    The name of the monitored room
+     * @param clientCount Callback returning the current number of registered clients
+     */
+    public ChatRoomMetrics(String roomName, IntSupplier clientCount) {
+        this.roomName = roomName;
+        this.clientCount = clientCount;
+        this.publishes = new RateMeter();
+        this.fanOut = new LatencyHistogram();
+        this.queuing = new LatencyHistogram();
+        this.delivery = new LatencyHistogram();
+        this.evictions = new RateMeter();
+        this.drops = new RateMeter();
+    }
+
+    /**
+     * Register this object to the platform MBean server, replacing any previous room with the same name
+     */
+    public void register() {
+        try {
+            ObjectName name = objectName(roomName);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param roomName The name of a room
+     * @return The JMX name of the metrics of this room
+     * @throws JMException If the room name cannot be used in an ObjectName
+     */
+    public static ObjectName objectName(String roomName) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=ChatRoom,name=" + ObjectName.quote(roomName));
+    }
+
+    /*
+     * Recording methods, called by the ChatServer
+     */
+
+    public void publishCompleted(long fanOutNanos) {
+        publishes.mark();
+        fanOut.record(fanOutNanos);
+    }
+
+    public void publishQueued(long queuingNanos) {
+        publishes.mark();
+        queuing.record(queuingNanos);
+    }
+
+    public void deliveryCompleted(long nanos) {
+        delivery.record(nanos);
+    }
+
+    public void clientEvicted() {
+        evictions.mark();
+    }
+
+    public void messageDropped() {
+        drops.mark();
+    }
+
+    /*
+     * Implementation of the ChatRoomMetricsMBean interface
+     */
+
+    @Override
+    public String getRoomName() {
+        return roomName;
+    }
+
+    @Override
+    public int getRegisteredClients() {
+        return clientCount.getAsInt();
+    }
+
+    @Override
+    public long getPublishCount() {
+        return publishes.getCount();
+    }
+
+    @Override
+    public double getPublishRate() {
+        return publishes.getOneMinuteRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.getCount();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return drops.getCount();
+    }
+
+    @Override
+    public double getFanOutMeanMicros() {
+        return fanOut.getMean() / 1000;
+    }
+
+    @Override
+    public double getFanOutP50Micros() {
+        return fanOut.getQuantile(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getFanOutP99Micros() {
+        return fanOut.getQuantile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getFanOutMaxMicros() {
+        return fanOut.getMax() / 1000.0;
+    }
+
+    @Override
+    public long[] getFanOutHistogram() {
+        return fanOut.getBuckets();
+    }
+
+    @Override
+    public double getQueuingMeanMicros() {
+        return queuing.getMean() / 1000;
+    }
+
+    @Override
+    public double getQueuingP99Micros() {
+        return queuing.getQuantile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getQueuingMaxMicros() {
+        return queuing.getMax() / 1000.0;
+    }
+
+    @Override
+    public long getDeliveryCount() {
+        return delivery.getCount();
+    }
+
+    @Override
+    public double getDeliveryMeanMicros() {
+        return delivery.getMean() / 1000;
+    }
+
+    @Override
+    public double getDeliveryP99Micros() {
+        return delivery.getQuantile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getDeliveryMaxMicros() {
+        return delivery.getMax() / 1000.0;
+    }
+
+    @Override
+    public long[] getDeliveryHistogram() {
+        return delivery.getBuckets();
+    }
+}
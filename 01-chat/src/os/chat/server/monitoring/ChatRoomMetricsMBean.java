@@ -0,0 +1,108 @@
+package os.chat.server.monitoring;
+
+
+/**
+ * Management interface of a chat room, as exposed through JMX.
+ * All durations are expressed in microseconds.
+ * <p/>
+ * The fan-out is measured in the sequential delivery mode, where publishing a message delivers it to
+ * every client. In the session modes, publishing only queues the message in the session of each client,
+ * which is measured as the queuing; the deliveries are measured in both modes, as they happen.
+ */
+public interface ChatRoomMetricsMBean {
+
+    /**
+     * @return The name of the monitored room
+     */
+    public String getRoomName();
+
+    /**
+     * @return The number of clients currently registered to the room
+     */
+    public int getRegisteredClients();
+
+    /**
+     * @return The number of messages published in the room since it was created
+     */
+    public long getPublishCount();
+
+    /**
+     * @return The one-minute moving average of published messages per second
+     */
+    public double getPublishRate();
+
+    /**
+     * @return The number of clients that were removed because they could not be reached
+     */
+    public long getEvictionCount();
+
+    /**
+     * @return The number of messages not queued for a client because its session mailbox was full
+     */
+    public long getDroppedCount();
+
+    /**
+     * @return The mean time needed to deliver a message to every client of the room
+     */
+    public double getFanOutMeanMicros();
+
+    /**
+     * @return The approximate median fan-out duration
+     */
+    public double getFanOutP50Micros();
+
+    /**
+     * @return The approximate 99th percentile of the fan-out duration
+     */
+    public double getFanOutP99Micros();
+
+    /**
+     * @return The longest fan-out observed
+     */
+    public double getFanOutMaxMicros();
+
+    /**
+     * @return Counts of fan-out durations per power-of-two bucket of nanoseconds
+     */
+    public long[] getFanOutHistogram();
+
+    /**
+     * @return The mean time needed to queue a message in the session of every client of the room
+     */
+    public double getQueuingMeanMicros();
+
+    /**
+     * @return The approximate 99th percentile of the queuing duration
+     */
+    public double getQueuingP99Micros();
+
+    /**
+     * @return The longest queuing observed
+     */
+    public double getQueuingMaxMicros();
+
+    /**
+     * @return The number of individual deliveries to clients
+     */
+    public long getDeliveryCount();
+
+    /**
+     * @return The mean time taken by a single client to receive a message
+     */
+    public double getDeliveryMeanMicros();
+
+    /**
+     * @return The approximate 99th percentile of the per-client delivery latency
+     */
+    public double getDeliveryP99Micros();
+
+    /**
+     * @return The slowest delivery to a single client
+     */
+    public double getDeliveryMaxMicros();
+
+    /**
+     * @return Counts of per-client delivery latencies per power-of-two bucket of nanoseconds
+     */
+    public long[] getDeliveryHistogram();
+}
@@ -0,0 +1,60 @@
+package os.chat.server.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Metrics collected by the ChatServerManager
+ */
+public class ChatServerManagerMetrics implements ChatServerManagerMetricsMBean {
+
+    private final IntSupplier roomCount;
+    private final LongAdder roomsCreated;
+
+    /**
+     * @param roomCount Callback returning the current number of rooms
+     */
+    public ChatServerManagerMetrics(IntSupplier roomCount) {
+        this.roomCount = roomCount;
+        this.roomsCreated = new LongAdder();
+    }
+
+    /**
+     * Register this object to the platform MBean server
+     */
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(ChatRoomMetrics.JMX_DOMAIN + ":type=ChatServerManager");
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void roomCreated(String roomName) {
+        roomsCreated.increment();
+        RoomCreatedEvent event = new RoomCreatedEvent();
+        if (event.shouldCommit()) {
+            event.room = roomName;
+            event.commit();
+        }
+    }
+
+    @Override
+    public int getRoomCount() {
+        return roomCount.getAsInt();
+    }
+
+    @Override
+    public long getRoomsCreated() {
+        return roomsCreated.sum();
+    }
+}
@@ -0,0 +1,18 @@
+package os.chat.server.monitoring;
+
+
+/**
+ * Management interface of the ChatServerManager, as exposed through JMX.
+ */
+public interface ChatServerManagerMetricsMBean {
+
+    /**
+     * @return The number of chat rooms currently hosted
+     */
+    public int getRoomCount();
+
+    /**
+     * @return The number of rooms created since the server started
+     */
+    public long getRoomsCreated();
+}
@@ -0,0 +1,29 @@
+package os.chat.server.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event emitted when an unreachable client is removed from a room
+ */
+@Name("os.chat.server.ClientEvicted")
+@Label("Chat Client Evicted")
+@Category({"Chat", "Server"})
+@Description("A client could not be reached and was removed from the room")
+@StackTrace(false)
+public class ClientEvictedEvent extends Event {
+
+    @Label("Room")
+    public String room;
+
+    @Label("Client")
+    public String client;
+
+    @Label("Cause")
+    public String cause;
+}
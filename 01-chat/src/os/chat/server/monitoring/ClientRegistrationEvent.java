@@ -0,0 +1,30 @@
+package os.chat.server.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event emitted when a client joins or leaves a room
+ */
+@Name("os.chat.server.ClientRegistration")
+@Label("Chat Client Registration")
+@Category({"Chat", "Server"})
+@Description("A client registered to or unregistered from a room")
+@StackTrace(false)
+public class ClientRegistrationEvent extends Event {
+
+    @Label("Room")
+    public String room;
+
+    @Label("Client")
+    public String client;
+
+    @Label("Registered")
+    @Description("true when the client joined the room, false when it left")
+    public boolean registered;
+}
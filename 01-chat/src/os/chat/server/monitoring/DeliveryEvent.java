@@ -0,0 +1,30 @@
+package os.chat.server.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+
+/**
+ * JFR event for the delivery of a message to a single client.
+ * Only slow deliveries are recorded by default, as there is one per recipient and per message.
+ */
+@Name("os.chat.server.Delivery")
+@Label("Chat Delivery")
+@Category({"Chat", "Server"})
+@Description("Remote call delivering a message to one client")
+@Threshold("10 ms")
+public class DeliveryEvent extends Event {
+
+    @Label("Room")
+    public String room;
+
+    @Label("Client")
+    public String client;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,115 @@
+package os.chat.server.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free histogram of durations expressed in nanoseconds.
+ * Bucket i counts the samples whose value lies in [2^i, 2^(i+1)), so recording a sample
+ * is a single atomic increment and the whole histogram fits in a fixed array.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of power-of-two buckets (covers the whole positive range of a long)
+     */
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private volatile long max;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+    }
+
+    /**
+     * Record one sample
+     *
+     * @param nanos The measured duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        // Racy max is fine: a lost update can only under-report by one concurrent sample
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * @return The number of recorded samples
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The arithmetic mean of the samples, in nanoseconds
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return The largest recorded sample, in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Approximate a quantile from the buckets. The result is the upper bound of the bucket
+     * containing the requested rank, so it is accurate within a factor of two.
+     *
+     * @param q The quantile, between 0 and 1
+     * @return The approximated value, in nanoseconds
+     */
+    public long getQuantile(double q) {
+        long[] snapshot = getBuckets();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return A copy of the bucket counters
+     */
+    public long[] getBuckets() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+}
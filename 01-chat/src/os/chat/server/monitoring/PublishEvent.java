@@ -0,0 +1,38 @@
+package os.chat.server.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * JFR event spanning the fan-out of one message to every client of a room. In the session delivery
+ * modes, the event only spans the queuing of the message in the session of each client: the clients
+ * it is queued for are counted in queued, not in recipients.
+ */
+@Name("os.chat.server.Publish")
+@Label("Chat Publish")
+@Category({"Chat", "Server"})
+@Description("Delivery of one published message to all the clients of a room, or its queuing in their sessions")
+public class PublishEvent extends Event {
+
+    @Label("Room")
+    public String room;
+
+    @Label("Recipients")
+    @Description("Clients the message was delivered to")
+    public int recipients;
+
+    @Label("Evicted Clients")
+    public int evicted;
+
+    @Label("Queued")
+    @Description("Sessions the message was queued in, to be delivered by their own thread")
+    public int queued;
+
+    @Label("Dropped")
+    @Description("Sessions whose mailbox was full, so that the message was not queued")
+    public int dropped;
+}
@@ -0,0 +1,83 @@
+package os.chat.server.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Exponentially-weighted moving average of an event rate, similar to the one-minute load average.
+ * Marking an event only increments a striped counter; the average is folded in lazily, once per tick,
+ * by whichever thread notices that a tick has elapsed.
+ */
+public class RateMeter {
+
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(5);
+    /**
+     * Smoothing factor for a one-minute window sampled every five seconds
+     */
+    private static final double ALPHA = 1 - Math.exp(-5.0 / 60.0);
+
+    private final LongAdder uncounted;
+    private final LongAdder total;
+    private final AtomicLong lastTick;
+    private volatile double ratePerNano;
+    private volatile boolean initialized;
+
+    public RateMeter() {
+        this.uncounted = new LongAdder();
+        this.total = new LongAdder();
+        this.lastTick = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Record one event
+     */
+    public void mark() {
+        tickIfNecessary();
+        uncounted.increment();
+        total.increment();
+    }
+
+    /**
+     * @return The total number of events marked since creation
+     */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * @return The one-minute moving average, in events per second
+     */
+    public double getOneMinuteRate() {
+        tickIfNecessary();
+        return ratePerNano * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private void tickIfNecessary() {
+        long old = lastTick.get();
+        long now = System.nanoTime();
+        long age = now - old;
+        if (age < TICK_NANOS) {
+            return;
+        }
+        long newTick = now - age % TICK_NANOS;
+        // Only one thread wins the right to fold the elapsed ticks into the average
+        if (lastTick.compareAndSet(old, newTick)) {
+            long ticks = age / TICK_NANOS;
+            for (long i = 0; i < ticks; i++) {
+                tick();
+            }
+        }
+    }
+
+    private void tick() {
+        double instantRate = (double) uncounted.sumThenReset() / TICK_NANOS;
+        if (initialized) {
+            ratePerNano += ALPHA * (instantRate - ratePerNano);
+        } else {
+            ratePerNano = instantRate;
+            initialized = true;
+        }
+    }
+}
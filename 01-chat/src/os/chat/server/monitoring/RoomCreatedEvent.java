@@ -0,0 +1,21 @@
+package os.chat.server.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event emitted when the ChatServerManager creates a new room
+ */
+@Name("os.chat.server.RoomCreated")
+@Label("Chat Room Created")
+@Category({"Chat", "Server"})
+@StackTrace(false)
+public class RoomCreatedEvent extends Event {
+
+    @Label("Room")
+    public String room;
+}
@@ -0,0 +1,147 @@
+package ch.unine.os.as2;
+
+import java.util.Arrays;
+
+/**
+ * Event queue stored as a binary min-heap ordered by event time, then by insertion order.
+ * <p/>
+ * The heap is stored in parallel primitive arrays, which means scheduling an event allocates nothing
+ * (except when the arrays need to grow). Adding and removing an event are O(log n).
+ */
+public class BinaryHeapEventQueue implements EventQueue {
+    private double[] times;
+    private long[] sequences;
+    private int[] types;
+    private int[] payloads;
+    private int size;
+    private long nextSequence;
+
+    public BinaryHeapEventQueue() {
+        this(64);
+    }
+
+    public BinaryHeapEventQueue(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 2);
+        times = new double[capacity];
+        sequences = new long[capacity];
+        types = new int[capacity];
+        payloads = new int[capacity];
+    }
+
+    @Override
+    public void add(double time, int type, int payload) {
+        add(time, nextSequence++, type, payload);
+    }
+
+    /**
+     * Schedule an event with an explicit sequence number, for queues that use this one as a part
+     *
+     * @param sequence Orders the events with the same time
+     */
+    void add(double time, long sequence, int type, int payload) {
+        if (size == times.length) {
+            grow();
+        }
+        // Sift up: move parents down until the slot for the new event is found
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(time, sequence, parent)) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, time, sequence, type, payload);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double peekTime() {
+        return times[0];
+    }
+
+    @Override
+    public int peekType() {
+        return types[0];
+    }
+
+    @Override
+    public int peekPayload() {
+        return payloads[0];
+    }
+
+    /**
+     * @return Sequence number of the earliest event
+     */
+    long peekSequence() {
+        return sequences[0];
+    }
+
+    @Override
+    public void remove() {
+        if (size == 0) {
+            throw new IllegalStateException("No event");
+        }
+        size--;
+        if (size == 0) {
+            return;
+        }
+        double time = times[size];
+        long sequence = sequences[size];
+        int type = types[size];
+        int payload = payloads[size];
+        // Sift down the last event from the root
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && before(times[right], sequences[right], child)) {
+                child = right;
+            }
+            if (!before(times[child], sequences[child], time, sequence)) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        set(i, time, sequence, type, payload);
+    }
+
+    private boolean before(double time, long sequence, int slot) {
+        return before(time, sequence, times[slot], sequences[slot]);
+    }
+
+    private static boolean before(double time, long sequence, double otherTime, long otherSequence) {
+        return time < otherTime || (time == otherTime && sequence < otherSequence);
+    }
+
+    private void move(int from, int to) {
+        set(to, times[from], sequences[from], types[from], payloads[from]);
+    }
+
+    private void set(int slot, double time, long sequence, int type, int payload) {
+        times[slot] = time;
+        sequences[slot] = sequence;
+        types[slot] = type;
+        payloads[slot] = payload;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        types = Arrays.copyOf(types, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+}
@@ -0,0 +1,297 @@
+package ch.unine.os.as2;
+
+import java.util.Arrays;
+
+/**
+ * Event queue organized as a calendar queue (R. Brown, 1988): a ring of buckets, each covering one "day" of
+ * simulated time, the ring covering one "year". Each bucket holds the events of its days in a sorted list.
+ * <p/>
+ * The earliest event is found by walking the days from the last one removed, so adding and removing are O(1) on
+ * average when the width of a day matches the spacing of the events. The number of buckets follows the number of
+ * events, and the width is re-estimated from the spacing of the earliest events each time the ring is resized.
+ */
+public class CalendarEventQueue implements EventQueue {
+    private static final int NONE = -1;
+    private static final int MIN_BUCKETS = 16;
+    /**
+     * Number of earliest distinct times whose spacing sets the width of a day
+     */
+    private static final int SAMPLE = 25;
+
+    /*
+     * Nodes, in parallel arrays; free nodes are linked through next
+     */
+    private double[] times;
+    private long[] sequences;
+    private int[] types;
+    private int[] payloads;
+    private int[] next;
+    private int free = NONE;
+    private int used;
+
+    private int[] buckets;
+    /**
+     * Last node of each bucket, and last node inserted in each bucket, where the search for the place of an event
+     * starts when possible: events added in order or at the same time are then linked in O(1)
+     */
+    private int[] tails;
+    private int[] fingers;
+    private int mask;
+    private double width;
+    /**
+     * No event is scheduled before this day
+     */
+    private long currentDay;
+    private int size;
+    private long nextSequence;
+    private double[] scratch = new double[64];
+    /**
+     * Earliest event, NONE until searched
+     */
+    private int first = NONE;
+
+    public CalendarEventQueue() {
+        this(1);
+    }
+
+    /**
+     * @param width Initial width of a day, adjusted as events are added
+     */
+    public CalendarEventQueue(double width) {
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("The width of a day must be positive");
+        }
+        this.width = width;
+        int capacity = 64;
+        times = new double[capacity];
+        sequences = new long[capacity];
+        types = new int[capacity];
+        payloads = new int[capacity];
+        next = new int[capacity];
+        buckets = new int[MIN_BUCKETS];
+        Arrays.fill(buckets, NONE);
+        tails = new int[MIN_BUCKETS];
+        fingers = new int[MIN_BUCKETS];
+        Arrays.fill(fingers, NONE);
+        mask = MIN_BUCKETS - 1;
+    }
+
+    @Override
+    public void add(double time, int type, int payload) {
+        if (size + 1 > 2 * buckets.length) {
+            resize(buckets.length * 2);
+        }
+        int node;
+        if (free != NONE) {
+            node = free;
+            free = next[node];
+        } else {
+            if (used == times.length) {
+                grow();
+            }
+            node = used++;
+        }
+        times[node] = time;
+        sequences[node] = nextSequence++;
+        types[node] = type;
+        payloads[node] = payload;
+        insert(node);
+        size++;
+        first = NONE;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double peekTime() {
+        return times[locate()];
+    }
+
+    @Override
+    public int peekType() {
+        return types[locate()];
+    }
+
+    @Override
+    public int peekPayload() {
+        return payloads[locate()];
+    }
+
+    @Override
+    public void remove() {
+        int node = locate();
+        // The earliest event is the head of its bucket
+        int bucket = (int) (currentDay & mask);
+        buckets[bucket] = next[node];
+        if (next[node] == NONE) {
+            tails[bucket] = NONE;
+        }
+        if (fingers[bucket] == node) {
+            fingers[bucket] = NONE;
+        }
+        next[node] = free;
+        free = node;
+        size--;
+        first = NONE;
+        if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+            resize(buckets.length / 2);
+        }
+    }
+
+    private long day(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    /**
+     * Insert a node in the sorted list of its bucket
+     */
+    private void insert(int node) {
+        long day = day(times[node]);
+        if (day < currentDay) {
+            currentDay = day;
+        }
+        int bucket = (int) (day & mask);
+        int tail = tails[bucket];
+        if (buckets[bucket] == NONE || before(tail, node)) {
+            next[node] = NONE;
+            if (buckets[bucket] == NONE) {
+                buckets[bucket] = node;
+            } else {
+                next[tail] = node;
+            }
+            tails[bucket] = node;
+            fingers[bucket] = node;
+            return;
+        }
+        int previous = fingers[bucket] != NONE && before(fingers[bucket], node) ? fingers[bucket] : NONE;
+        int current = previous == NONE ? buckets[bucket] : next[previous];
+        while (before(current, node)) {
+            previous = current;
+            current = next[current];
+        }
+        next[node] = current;
+        if (previous == NONE) {
+            buckets[bucket] = node;
+        } else {
+            next[previous] = node;
+        }
+        fingers[bucket] = node;
+    }
+
+    /**
+     * @return The earliest event, searched day after day from the current day during one year,
+     * then directly among the heads of the buckets
+     */
+    private int locate() {
+        if (first != NONE) {
+            return first;
+        }
+        if (size == 0) {
+            throw new IllegalStateException("No event");
+        }
+        for (int k = 0; k < buckets.length; k++) {
+            long day = currentDay + k;
+            int head = buckets[(int) (day & mask)];
+            if (head != NONE && day(times[head]) == day) {
+                currentDay = day;
+                first = head;
+                return head;
+            }
+        }
+        int best = NONE;
+        for (int head : buckets) {
+            if (head != NONE && (best == NONE || before(head, best))) {
+                best = head;
+            }
+        }
+        currentDay = day(times[best]);
+        first = best;
+        return best;
+    }
+
+    private boolean before(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && sequences[a] < sequences[b]);
+    }
+
+    /**
+     * Change the number of buckets, and set the width of a day from the spacing of the earliest events
+     */
+    private void resize(int count) {
+        int n = 0;
+        for (int head : buckets) {
+            for (int node = head; node != NONE; node = next[node]) {
+                if (n == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, n * 2);
+                }
+                scratch[n++] = times[node];
+            }
+        }
+        Arrays.sort(scratch, 0, n);
+        double earliest = n > 0 ? scratch[0] : 0;
+        width = estimateWidth(scratch, n);
+
+        int[] old = buckets;
+        buckets = new int[count];
+        Arrays.fill(buckets, NONE);
+        tails = new int[count];
+        fingers = new int[count];
+        Arrays.fill(fingers, NONE);
+        mask = count - 1;
+        if (n > 0) {
+            currentDay = day(earliest);
+        }
+        for (int head : old) {
+            int node = head;
+            while (node != NONE) {
+                int following = next[node];
+                insert(node);
+                node = following;
+            }
+        }
+        first = NONE;
+    }
+
+    /**
+     * @return Three times the average separation of the first distinct sorted times, ignoring separations larger
+     * than twice the average, or the current width if the times are all equal
+     */
+    private double estimateWidth(double[] sorted, int n) {
+        int distinct = 0;
+        for (int i = 0; i < n && distinct < SAMPLE; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        if (distinct < 2) {
+            return width;
+        }
+        double average = (sorted[distinct - 1] - sorted[0]) / (distinct - 1);
+        double total = 0;
+        int count = 0;
+        for (int i = 1; i < distinct; i++) {
+            double separation = sorted[i] - sorted[i - 1];
+            if (separation <= 2 * average) {
+                total += separation;
+                count++;
+            }
+        }
+        return 3 * total / count;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        types = Arrays.copyOf(types, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+}
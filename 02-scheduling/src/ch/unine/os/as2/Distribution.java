@@ -0,0 +1,146 @@
+package ch.unine.os.as2;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Random distribution of a workload parameter, as written in a .run file:
+ * <ul>
+ * <li>{@code constant x}</li>
+ * <li>{@code uniform low high}</li>
+ * <li>{@code exponential mean}</li>
+ * </ul>
+ */
+public abstract class Distribution {
+
+    /**
+     * Draw a value from the distribution
+     *
+     * @param random The source of randomness
+     * @return The drawn value
+     */
+    public abstract double sample(RandomGenerator random);
+
+    /**
+     * @return The expected value of the distribution
+     */
+    public abstract double mean();
+
+    /**
+     * Parse a distribution from the tokens of a .run file line
+     *
+     * @param tokens The tokens of the line
+     * @param from   Index of the token holding the name of the distribution
+     * @return The parsed distribution
+     * @throws IllegalArgumentException If the distribution is unknown or its parameters are missing
+     */
+    public static Distribution parse(String[] tokens, int from) {
+        if (tokens.length <= from) {
+            throw new IllegalArgumentException("Missing distribution");
+        }
+        String kind = tokens[from];
+        switch (kind) {
+            case "constant":
+                return new Constant(parameter(tokens, from, 1));
+            case "uniform":
+                return new Uniform(parameter(tokens, from, 1), parameter(tokens, from, 2));
+            case "exponential":
+                return new Exponential(parameter(tokens, from, 1));
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + kind);
+        }
+    }
+
+    private static double parameter(String[] tokens, int from, int index) {
+        if (tokens.length <= from + index) {
+            throw new IllegalArgumentException("Missing parameter " + index + " of distribution " + tokens[from]);
+        }
+        return Double.parseDouble(tokens[from + index]);
+    }
+
+    /**
+     * Always the same value
+     */
+    public static final class Constant extends Distribution {
+        private final double value;
+
+        public Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double sample(RandomGenerator random) {
+            return value;
+        }
+
+        @Override
+        public double mean() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "constant " + value;
+        }
+    }
+
+    /**
+     * Uniform distribution in [low, high)
+     */
+    public static final class Uniform extends Distribution {
+        private final double low;
+        private final double high;
+
+        public Uniform(double low, double high) {
+            if (high < low) {
+                throw new IllegalArgumentException("Empty uniform range [" + low + ", " + high + ")");
+            }
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public double sample(RandomGenerator random) {
+            return low + (high - low) * random.nextDouble();
+        }
+
+        @Override
+        public double mean() {
+            return (low + high) / 2;
+        }
+
+        @Override
+        public String toString() {
+            return "uniform " + low + " " + high;
+        }
+    }
+
+    /**
+     * Exponential distribution with the given mean
+     */
+    public static final class Exponential extends Distribution {
+        private final double mean;
+
+        public Exponential(double mean) {
+            if (mean < 0) {
+                throw new IllegalArgumentException("Negative exponential mean: " + mean);
+            }
+            this.mean = mean;
+        }
+
+        @Override
+        public double sample(RandomGenerator random) {
+            // Ziggurat; unlike the inverse transform, it seldom needs a logarithm
+            return mean * random.nextExponential();
+        }
+
+        @Override
+        public double mean() {
+            return mean;
+        }
+
+        @Override
+        public String toString() {
+            return "exponential " + mean;
+        }
+    }
+}
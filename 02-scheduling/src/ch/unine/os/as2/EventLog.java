@@ -0,0 +1,326 @@
+package ch.unine.os.as2;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Binary log of the scheduling events of a simulation, written by the {@link Simulator} and read by
+ * {@link GanttChart} without running the simulation again.
+ * <p/>
+ * The file starts with the magic bytes {@code PSL1} and the resolution of the times, in ticks per unit of
+ * simulated time, as the 8 big-endian bytes of a double. Each record then holds:
+ * <ul>
+ * <li>one byte: the kind of the record in the low 3 bits, and its argument in the high 5 bits if it is below 31,
+ * 31 otherwise;</li>
+ * <li>the time elapsed since the previous record, in ticks, as an unsigned LEB128 varint;</li>
+ * <li>the pid of the process, as a varint;</li>
+ * <li>the argument as a varint, only if it did not fit in the first byte.</li>
+ * </ul>
+ * Times are rounded to the resolution once, and the deltas are taken between rounded times, so rounding errors do
+ * not accumulate. A record usually takes 3 to 5 bytes.
+ * <p/>
+ * Pids are reused once their process has completed; an {@link #ARRIVAL} record starts a new process, and the
+ * reader numbers processes in order of arrival, as {@link ProcessTable#getSerial} does.
+ */
+public final class EventLog {
+
+    /*
+     * Kinds of records, and their argument
+     */
+    /**
+     * A process arrives and becomes ready; argument: its class (block of the .run file, or trace)
+     */
+    public static final int ARRIVAL = 0;
+    /**
+     * A core starts running a process; argument: the core
+     */
+    public static final int DISPATCH = 1;
+    /**
+     * A process is preempted and becomes ready; argument: the core
+     */
+    public static final int PREEMPT = 2;
+    /**
+     * A process starts an I/O burst; argument: the device plus one, 0 for a pure delay
+     */
+    public static final int IO_START = 3;
+    /**
+     * A device starts serving the request of a process, which waited in its queue until then; argument: the device
+     */
+    public static final int SERVICE = 4;
+    /**
+     * A process completes its I/O burst and becomes ready; no argument
+     */
+    public static final int IO_DONE = 5;
+    /**
+     * A process completes; no argument
+     */
+    public static final int COMPLETE = 6;
+
+    /**
+     * Resolution used when none is given: a thousandth of a unit of simulated time
+     */
+    public static final double DEFAULT_RESOLUTION = 1000;
+
+    private static final byte[] MAGIC = {'P', 'S', 'L', '1'};
+    private static final int KIND_BITS = 3;
+    private static final int INLINE_ARGUMENTS = 31;
+
+    /**
+     * Varints of up to 4 bytes, values below 2^28, are read and written as one little-endian int with bit tricks
+     * rather than byte by byte: their lengths vary from record to record, and a loop per byte mispredicts its exit
+     */
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int SHORT_VARINT_BITS = 28;
+
+    private EventLog() {
+    }
+
+    /**
+     * Writer of a log, buffering the records in a fixed array: writing a record allocates nothing
+     */
+    public static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private final double resolution;
+        private int position;
+        private long lastTicks;
+        private long records;
+
+        /**
+         * @param file       The log to create, replaced if it exists
+         * @param resolution Ticks per unit of simulated time
+         * @throws IOException If the file cannot be created
+         */
+        public Writer(Path file, double resolution) throws IOException {
+            if (!(resolution > 0)) {
+                throw new IllegalArgumentException("The resolution must be positive");
+            }
+            this.out = Files.newOutputStream(file);
+            this.resolution = resolution;
+            System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+            long bits = Double.doubleToLongBits(resolution);
+            for (int i = 0; i < 8; i++) {
+                buffer[MAGIC.length + i] = (byte) (bits >>> (56 - 8 * i));
+            }
+            position = MAGIC.length + 8;
+        }
+
+        /**
+         * Append a record
+         *
+         * @param kind     Kind of the record, e.g. {@link #DISPATCH}
+         * @param time     Simulated time of the event, not before the previous record
+         * @param pid      The process
+         * @param argument Argument of the kind, 0 if it has none
+         * @throws UncheckedIOException If the buffer cannot be written to the file
+         */
+        public void write(int kind, double time, int pid, int argument) {
+            if (position > buffer.length - 32) {
+                flush();
+            }
+            long ticks = Math.round(time * resolution);
+            int inline = Math.min(argument, INLINE_ARGUMENTS);
+            buffer[position++] = (byte) (kind | inline << KIND_BITS);
+            // Guard against a rounding of the times that would make them decrease
+            writeVarint(Math.max(0, ticks - lastTicks));
+            lastTicks = Math.max(ticks, lastTicks);
+            writeVarint(pid);
+            if (inline == INLINE_ARGUMENTS) {
+                writeVarint(argument);
+            }
+            records++;
+        }
+
+        private void writeVarint(long value) {
+            if (value >>> SHORT_VARINT_BITS == 0) {
+                int v = (int) value;
+                int length = (38 - Integer.numberOfLeadingZeros(v | 1)) / 7;
+                int groups = v & 0x7F | v << 1 & 0x7F00 | v << 2 & 0x7F0000 | v << 3 & 0x7F000000;
+                int continuations = 0x808080 & (1 << 8 * (length - 1)) - 1;
+                INT.set(buffer, position, groups | continuations);
+                position += length;
+                return;
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) (value | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * @return The number of records written
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        private void flush() {
+            try {
+                out.write(buffer, 0, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Sequential reader of a log. Records are read into reusable fields: reading allocates nothing per record.
+     */
+    public static final class Reader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private final double resolution;
+        private long ticks;
+
+        private int kind;
+        private int pid;
+        private int argument;
+        /**
+         * Serial number of the process of each pid, as numbered by arrival
+         */
+        private int[] serials = new int[64];
+        private int nextSerial;
+
+        /**
+         * @param file The log to read
+         * @throws IOException              If the file cannot be read
+         * @throws IllegalArgumentException If the file is not an event log
+         */
+        public Reader(Path file) throws IOException {
+            this.in = Files.newInputStream(file);
+            try {
+                for (byte magic : MAGIC) {
+                    if (readByte() != magic) {
+                        throw new IllegalArgumentException(file + ": not an event log");
+                    }
+                }
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = bits << 8 | readByte() & 0xFF;
+                }
+                resolution = Double.longBitsToDouble(bits);
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Read the next record
+         *
+         * @return false at the end of the log
+         * @throws IOException If the file cannot be read or ends in the middle of a record
+         */
+        public boolean next() throws IOException {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            int header = buffer[position++] & 0xFF;
+            kind = header & ((1 << KIND_BITS) - 1);
+            ticks += readVarint();
+            pid = (int) readVarint();
+            argument = header >>> KIND_BITS;
+            if (argument == INLINE_ARGUMENTS) {
+                argument = (int) readVarint();
+            }
+            if (kind == ARRIVAL) {
+                if (pid >= serials.length) {
+                    serials = Arrays.copyOf(serials, Math.max(pid + 1, serials.length * 2));
+                }
+                serials[pid] = nextSerial++;
+            }
+            return true;
+        }
+
+        private long readVarint() throws IOException {
+            if (limit - position >= 4) {
+                int bytes = (int) INT.get(buffer, position);
+                int last = Integer.numberOfTrailingZeros(~bytes & 0x80808080);
+                if (last < 32) {
+                    position += (last + 1) / 8;
+                    int v = bytes & 0x7F | bytes >>> 1 & 0x3F80 | bytes >>> 2 & 0x1FC000 | bytes >>> 3 & 0xFE00000;
+                    return v & (1 << (last + 1) / 8 * 7) - 1;
+                }
+            }
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit && !fill()) {
+                throw new EOFException("Truncated event log");
+            }
+            return buffer[position++];
+        }
+
+        private boolean fill() throws IOException {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit < 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        /**
+         * @return Simulated time of the record, rounded to the resolution of the log
+         */
+        public double getTime() {
+            return ticks / resolution;
+        }
+
+        public int getPid() {
+            return pid;
+        }
+
+        /**
+         * @return Number of the process in order of arrival, starting at 0
+         */
+        public int getSerial() {
+            return serials[pid];
+        }
+
+        public int getArgument() {
+            return argument;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
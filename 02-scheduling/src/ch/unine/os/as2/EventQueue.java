@@ -0,0 +1,98 @@
+package ch.unine.os.as2;
+
+import java.util.Locale;
+
+/**
+ * Future event list of the simulator: events are removed in order of time.
+ * <p/>
+ * Events with the same time are returned in insertion order, so the simulation is deterministic and does not
+ * depend on the implementation. Events are never scheduled before the last event removed.
+ * <p/>
+ * The binary heap is the default: since processes are only created when they arrive, the simulator keeps at most a
+ * few dozen events pending, and on such queues no implementation is clearly faster. The calendar queue pays off
+ * with about 10^5 pending events; the timing wheel only when the events are spread over many ticks.
+ */
+public interface EventQueue {
+
+    /**
+     * The available implementations, compared by {@link EventQueueBenchmark}
+     */
+    enum Implementation {
+        BINARY_HEAP,
+        PAIRING_HEAP,
+        CALENDAR,
+        TIMING_WHEEL;
+
+        /**
+         * System property selecting the implementation used by the simulator
+         */
+        public static final String PROPERTY = "os.sim.events";
+
+        public EventQueue create() {
+            switch (this) {
+                case BINARY_HEAP:
+                    return new BinaryHeapEventQueue();
+                case PAIRING_HEAP:
+                    return new PairingHeapEventQueue();
+                case CALENDAR:
+                    return new CalendarEventQueue();
+                case TIMING_WHEEL:
+                    return new TimingWheelEventQueue();
+                default:
+                    throw new IllegalStateException("Unknown implementation " + this);
+            }
+        }
+
+        /**
+         * @param name Name of an implementation, case insensitive, e.g. "calendar" or "binary_heap"
+         * @return The implementation
+         * @throws IllegalArgumentException If the name is not known
+         */
+        public static Implementation parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        /**
+         * @return The implementation named by the os.sim.events system property, or the default one
+         */
+        public static Implementation fromSystemProperty() {
+            String name = System.getProperty(PROPERTY);
+            return name == null ? BINARY_HEAP : parse(name);
+        }
+    }
+
+    /**
+     * Schedule an event
+     *
+     * @param time    When the event happens
+     * @param type    Kind of event, interpreted by the simulator
+     * @param payload Event argument, e.g. a process identifier
+     */
+    void add(double time, int type, int payload);
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * @return Time of the earliest event
+     */
+    double peekTime();
+
+    /**
+     * @return Type of the earliest event
+     */
+    int peekType();
+
+    /**
+     * @return Payload of the earliest event
+     */
+    int peekPayload();
+
+    /**
+     * Remove the earliest event
+     *
+     * @throws IllegalStateException If the queue is empty
+     */
+    void remove();
+}
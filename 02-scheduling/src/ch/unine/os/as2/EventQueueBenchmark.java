@@ -0,0 +1,165 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.scheduler.Algorithm;
+import ch.unine.os.as2.stats.RunningStatistics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the {@link EventQueue} implementations on the operations of real simulations.
+ * <p/>
+ * Each workload is first simulated once with a recording queue, which logs every event added (with its time) and
+ * every event removed. The log is then replayed against each implementation, several times after a warm-up, so
+ * that every implementation sees exactly the operation mix and the time distribution of the simulator. Replays
+ * also check that every implementation removes the events in the same order as the binary heap.
+ * <p/>
+ * Since processes are created when they arrive, the simulator keeps few events pending. A last log follows the
+ * classic hold model to cover large queues: {@value #HOLD_SIZE} events stay pending, and each event removed is
+ * replaced by one scheduled after an increment drawn from those of the first simulation.
+ * <p/>
+ * Usage: EventQueueBenchmark [directory of the .run files] [iterations]
+ */
+public class EventQueueBenchmark {
+
+    /**
+     * Workloads, scales and algorithms whose operations are recorded
+     */
+    private static final String[][] MIXES = {
+            {"high_load", "100", "RR 1"},
+            {"high_load", "100", "FCFS"},
+            {"mixed_load", "20000", "RR 1"},
+    };
+    private static final int WARM_UP = 2;
+    /**
+     * Size and length of the hold model, whose increments are recorded from the first mix
+     */
+    private static final int HOLD_SIZE = 100000;
+    private static final int HOLD_OPERATIONS = 2000000;
+
+    /**
+     * Event queue logging the operations it receives: the time of each event added, NaN for each removal
+     */
+    private static class RecordingEventQueue extends BinaryHeapEventQueue {
+        private double[] log = new double[1 << 16];
+        private int length;
+        private int maxSize;
+        /**
+         * Time between the last event removed and each event added
+         */
+        private double[] increments = new double[1 << 16];
+        private int incrementCount;
+        private double now;
+
+        @Override
+        public void add(double time, int type, int payload) {
+            log = record(log, length++, time);
+            increments = record(increments, incrementCount++, time - now);
+            super.add(time, type, payload);
+            maxSize = Math.max(maxSize, size());
+        }
+
+        @Override
+        public void remove() {
+            log = record(log, length++, Double.NaN);
+            now = peekTime();
+            super.remove();
+        }
+
+        private static double[] record(double[] array, int index, double value) {
+            if (index == array.length) {
+                array = Arrays.copyOf(array, index * 2);
+            }
+            array[index] = value;
+            return array;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%-40s %-14s %10s %10s %10s%n", "operations", "queue", "ns/op", "sd", "max size");
+        double[] increments = null;
+        for (String[] mix : MIXES) {
+            Workload workload = Workload.parse(directory.resolve(mix[0] + ".run")).scaled(Integer.parseInt(mix[1]));
+            RecordingEventQueue recorder = new RecordingEventQueue();
+            new Simulator(workload, Algorithm.parse(mix[2]), workload.getSeed(), recorder).run();
+            if (increments == null) {
+                increments = Arrays.copyOf(recorder.increments, recorder.incrementCount);
+            }
+            double[] log = Arrays.copyOf(recorder.log, recorder.length);
+            measure(String.format(Locale.ROOT, "%s x%s %s", mix[0], mix[1], mix[2]), log, recorder.maxSize,
+                    iterations);
+        }
+        measure(String.format(Locale.ROOT, "hold model, %s increments", MIXES[0][0]),
+                holdModel(increments, new Random(1)), HOLD_SIZE, iterations);
+    }
+
+    private static void measure(String name, double[] log, int maxSize, int iterations) {
+        long reference = replay(EventQueue.Implementation.BINARY_HEAP.create(), log);
+        for (EventQueue.Implementation implementation : EventQueue.Implementation.values()) {
+            RunningStatistics nanosPerOperation = new RunningStatistics();
+            for (int i = 0; i < WARM_UP + iterations; i++) {
+                EventQueue queue = implementation.create();
+                long start = System.nanoTime();
+                long checksum = replay(queue, log);
+                long elapsed = System.nanoTime() - start;
+                if (checksum != reference) {
+                    throw new IllegalStateException(implementation + " removes the events in another order");
+                }
+                if (i >= WARM_UP) {
+                    nanosPerOperation.add((double) elapsed / log.length);
+                }
+            }
+            System.out.printf(Locale.ROOT, "%-40s %-14s %10.1f %10.1f %10d%n", name, implementation,
+                    nanosPerOperation.getMean(), nanosPerOperation.getStandardDeviation(), maxSize);
+        }
+    }
+
+    /**
+     * @return A log filling a queue with {@value #HOLD_SIZE} events, then removing an event and adding one after
+     * a random increment until the log holds {@value #HOLD_OPERATIONS} operations
+     */
+    private static double[] holdModel(double[] increments, Random random) {
+        double[] log = new double[HOLD_OPERATIONS];
+        BinaryHeapEventQueue queue = new BinaryHeapEventQueue();
+        double now = 0;
+        int length = 0;
+        while (length < HOLD_OPERATIONS) {
+            if (queue.size() == HOLD_SIZE) {
+                now = queue.peekTime();
+                queue.remove();
+                log[length++] = Double.NaN;
+            } else {
+                double time = now + increments[random.nextInt(increments.length)];
+                queue.add(time, 0, 0);
+                log[length++] = time;
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Replay a log of operations, the payload of each event being its position in the log
+     *
+     * @return A checksum of the order in which the events were removed
+     */
+    private static long replay(EventQueue queue, double[] log) {
+        long checksum = 0;
+        for (int i = 0; i < log.length; i++) {
+            double operation = log[i];
+            if (Double.isNaN(operation)) {
+                checksum = checksum * 31 + queue.peekPayload();
+                queue.remove();
+            } else {
+                queue.add(operation, 0, i);
+            }
+        }
+        return checksum;
+    }
+}
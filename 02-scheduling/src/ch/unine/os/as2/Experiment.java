@@ -0,0 +1,153 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.scheduler.Algorithm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Experiment definition, as read from a .exp file: a list of runs, each simulating a workload
+ * (a .run file in the same directory) with an algorithm.
+ * <p/>
+ * Run lines have the form {@code run <workload> algorithm <name> [parameters...] key "<key>"}.
+ */
+public class Experiment {
+
+    /**
+     * One line of an experiment
+     */
+    public static class Run {
+        private final Workload workload;
+        private final Algorithm algorithm;
+        private final String key;
+
+        public Run(Workload workload, Algorithm algorithm, String key) {
+            this.workload = workload;
+            this.algorithm = algorithm;
+            this.key = key;
+        }
+
+        public Workload getWorkload() {
+            return workload;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        /**
+         * @return The label of the run in the results
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final String name;
+    private final String comment;
+    private final List<Run> runs;
+
+    public Experiment(String name, String comment, List<Run> runs) {
+        this.name = name;
+        this.comment = comment;
+        this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
+    }
+
+    /**
+     * Read an experiment from a .exp file, and the workloads it refers to
+     *
+     * @param file  Path to the .exp file
+     * @param scale Multiplier of the number of processes of every workload
+     * @return The parsed experiment
+     * @throws IOException              If a file cannot be read
+     * @throws IllegalArgumentException If a file is not valid
+     */
+    public static Experiment parse(Path file, int scale) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.endsWith(".exp") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        String comment = "";
+        List<Run> runs = new ArrayList<>();
+        Map<String, Workload> workloads = new HashMap<>();
+        Path directory = file.toAbsolutePath().getParent();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty()) {
+                    continue;
+                }
+                try {
+                    switch (tokens[0]) {
+                        case "name":
+                            name = line.trim().substring(4).trim();
+                            break;
+                        case "comment":
+                            comment = line.trim().substring(7).trim();
+                            break;
+                        case "run":
+                            runs.add(parseRun(tokens, directory, scale, workloads));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown key " + tokens[0]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return new Experiment(name, comment, runs);
+    }
+
+    private static Run parseRun(String[] tokens, Path directory, int scale, Map<String, Workload> workloads)
+            throws IOException {
+        if (tokens.length < 4 || !tokens[2].equals("algorithm")) {
+            throw new IllegalArgumentException("Expected: run <workload> algorithm <algorithm> [key \"<key>\"]");
+        }
+        int keyIndex = tokens.length;
+        for (int i = 3; i < tokens.length; i++) {
+            if (tokens[i].equals("key")) {
+                keyIndex = i;
+                break;
+            }
+        }
+        Algorithm algorithm = Algorithm.parse(tokens, 3, keyIndex);
+        String key = keyIndex + 1 < tokens.length ? unquote(tokens[keyIndex + 1]) : algorithm.toString();
+
+        Workload workload = workloads.get(tokens[1]);
+        if (workload == null) {
+            workload = Workload.parse(directory.resolve(tokens[1] + ".run")).scaled(scale);
+            workloads.put(tokens[1], workload);
+        }
+        return new Run(workload, algorithm, key);
+    }
+
+    private static String unquote(String token) {
+        if (token.length() >= 2 && token.startsWith("\"") && token.endsWith("\"")) {
+            return token.substring(1, token.length() - 1);
+        }
+        return token;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public List<Run> getRuns() {
+        return runs;
+    }
+}
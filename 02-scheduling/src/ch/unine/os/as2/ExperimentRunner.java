@@ -0,0 +1,146 @@
+package ch.unine.os.as2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the lines of one or more experiments in parallel on a fork-join pool.
+ * <p/>
+ * Runs are independent: each simulator has its own random generator, seeded from the workload seed and the
+ * replication number only. Results therefore do not depend on the number of threads nor on the order in which
+ * runs complete, and they are returned in the order of the experiment lines.
+ */
+public class ExperimentRunner {
+
+    /**
+     * Result of one run, with its label
+     */
+    public static class Row {
+        private final String key;
+        private final int replication;
+        private final SimulationResult result;
+        private final long elapsedNanos;
+
+        Row(String key, int replication, SimulationResult result, long elapsedNanos) {
+            this.key = key;
+            this.replication = replication;
+            this.result = result;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getReplication() {
+            return replication;
+        }
+
+        public SimulationResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return Wall clock time taken by this run alone
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Golden ratio increment of SplitMix64, spreads consecutive replication numbers over the seed space
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final ForkJoinPool pool;
+    private final int replications;
+
+    /**
+     * @param pool         The pool running the simulations
+     * @param replications Number of times each run is repeated, with a different seed each time
+     */
+    public ExperimentRunner(ForkJoinPool pool, int replications) {
+        if (replications < 1) {
+            throw new IllegalArgumentException("At least one replication is needed");
+        }
+        this.pool = pool;
+        this.replications = replications;
+    }
+
+    /**
+     * Derive the seed of a replication from the seed of a workload. Replication 0 uses the workload seed
+     * itself, so a single replication gives the same results as simulating the .run file alone.
+     *
+     * @param seed        The seed of the workload
+     * @param replication The replication number
+     * @return The seed of the replication
+     */
+    public static long replicationSeed(long seed, int replication) {
+        if (replication == 0) {
+            return seed;
+        }
+        return RandomStream.mix64(seed + replication * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Run every line of the experiments, each one once per replication
+     *
+     * @param experiments The experiments to run
+     * @return One row per run and replication, in the order of the experiment files
+     */
+    public List<Row> run(List<Experiment> experiments) {
+        List<Experiment.Run> runs = new ArrayList<>();
+        for (Experiment experiment : experiments) {
+            runs.addAll(experiment.getRuns());
+        }
+        Row[] rows = new Row[runs.size() * replications];
+        pool.invoke(new RunTask(runs, rows, 0, rows.length));
+
+        List<Row> result = new ArrayList<>(rows.length);
+        for (Row row : rows) {
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * Fork-join task running a range of (run, replication) pairs, split in halves until a single one remains
+     */
+    private class RunTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Experiment.Run> runs;
+        private final Row[] rows;
+        private final int from;
+        private final int to;
+
+        RunTask(List<Experiment.Run> runs, Row[] rows, int from, int to) {
+            this.runs = runs;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RunTask(runs, rows, from, middle), new RunTask(runs, rows, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            Experiment.Run run = runs.get(from / replications);
+            int replication = from % replications;
+            long seed = replicationSeed(run.getWorkload().getSeed(), replication);
+
+            long start = System.nanoTime();
+            SimulationResult result = new Simulator(run.getWorkload(), run.getAlgorithm(), seed).run();
+            rows[from] = new Row(run.getKey(), replication, result, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package ch.unine.os.as2;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Gantt chart of the processes of a simulation, read from its {@link EventLog} without running it again.
+ * <p/>
+ * Each process is running (from its dispatch, context switch included, to the end of its slice), ready (in a ready
+ * queue) or waiting (for an I/O burst, in the queue of a device or being served). Processes are numbered from 1 in
+ * order of arrival. The log is read until the end of the time window or the completion of the last process shown,
+ * so the first processes of a long run are drawn without reading the whole log.
+ * <p/>
+ * Usage: GanttChart log [--first N] [--count N] [--from T] [--to T] [chart.png]
+ * <p/>
+ * Processes N to N + count - 1 (1 to 50 by default) are drawn in the PNG image, with one row per process as in
+ * the report, or printed as a timeline of their states, one line per interval, without an image file.
+ */
+public class GanttChart {
+
+    private static final int READY = 0;
+    private static final int RUNNING = 1;
+    private static final int WAITING = 2;
+    private static final String[] STATE_NAMES = {"ready", "running", "waiting"};
+    private static final Color[] STATE_COLORS = {Color.GREEN, Color.RED, Color.BLUE};
+
+    /*
+     * Layout of the image, in pixels
+     */
+    private static final int WIDTH = 600;
+    private static final int MARGIN = 20;
+    private static final int LEGEND_HEIGHT = 22;
+    private static final int ROW_HEIGHT = 10;
+    private static final int ROW_GAP = 2;
+    private static final int AXIS_HEIGHT = 20;
+
+    private final int first;
+    private final int count;
+    private final double from;
+    private final double to;
+
+    /*
+     * Intervals of each process shown: state changes, in order of time
+     */
+    private final double[][] times;
+    private final byte[][] states;
+    private final int[] lengths;
+    /**
+     * End of the last interval of each process, NaN while it is alive
+     */
+    private final double[] ends;
+    /**
+     * Number of processes shown that have arrived
+     */
+    private int arrived;
+    private double lastTime;
+
+    /**
+     * @param first Serial number of the first process shown, starting at 0
+     * @param count Number of processes shown
+     * @param from  Start of the time window
+     * @param to    End of the time window, infinite for the whole log
+     */
+    public GanttChart(int first, int count, double from, double to) {
+        if (first < 0 || count < 1) {
+            throw new IllegalArgumentException("At least one process must be shown");
+        }
+        if (!(to > from)) {
+            throw new IllegalArgumentException("The time window is empty");
+        }
+        this.first = first;
+        this.count = count;
+        this.from = from;
+        this.to = to;
+        times = new double[count][8];
+        states = new byte[count][8];
+        lengths = new int[count];
+        ends = new double[count];
+        Arrays.fill(ends, Double.NaN);
+    }
+
+    /**
+     * Read the intervals of the processes shown from a log
+     */
+    public void read(EventLog.Reader log) throws IOException {
+        int completed = 0;
+        while (completed < count && log.next()) {
+            double time = log.getTime();
+            if (time > to) {
+                break;
+            }
+            lastTime = time;
+            int p = log.getSerial() - first;
+            if (p < 0 || p >= count) {
+                continue;
+            }
+            switch (log.getKind()) {
+                case EventLog.ARRIVAL:
+                    arrived = Math.max(arrived, p + 1);
+                    change(p, time, READY);
+                    break;
+                case EventLog.PREEMPT:
+                case EventLog.IO_DONE:
+                    change(p, time, READY);
+                    break;
+                case EventLog.DISPATCH:
+                    change(p, time, RUNNING);
+                    break;
+                case EventLog.IO_START:
+                    change(p, time, WAITING);
+                    break;
+                case EventLog.COMPLETE:
+                    ends[p] = time;
+                    completed++;
+                    break;
+                default:
+                    // SERVICE: the process keeps waiting, now served by the device
+                    break;
+            }
+        }
+    }
+
+    private void change(int p, double time, int state) {
+        int length = lengths[p];
+        if (length == times[p].length) {
+            times[p] = Arrays.copyOf(times[p], length * 2);
+            states[p] = Arrays.copyOf(states[p], length * 2);
+        }
+        times[p][length] = time;
+        states[p][length] = (byte) state;
+        lengths[p] = length + 1;
+    }
+
+    /**
+     * @return The end of interval i of process p, the end of the reading if the process was still alive
+     */
+    private double end(int p, int i) {
+        if (i + 1 < lengths[p]) {
+            return times[p][i + 1];
+        }
+        return Double.isNaN(ends[p]) ? lastTime : ends[p];
+    }
+
+    /**
+     * @return The state of each process, one line per interval within the time window
+     */
+    public String timeline() {
+        StringBuilder text = new StringBuilder(String.format("%7s %12s %12s %s%n", "process", "start", "end", "state"));
+        for (int p = 0; p < arrived; p++) {
+            for (int i = 0; i < lengths[p]; i++) {
+                double start = Math.max(times[p][i], from);
+                double end = Math.min(end(p, i), to);
+                if (end > start || end == start && times[p][i] >= from) {
+                    text.append(String.format(Locale.ROOT, "%7d %12.3f %12.3f %s%n",
+                            first + p + 1, start, end, STATE_NAMES[states[p][i]]));
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return The chart: a legend, one row per process that has arrived, and a time axis
+     */
+    public BufferedImage draw() {
+        double start = from;
+        double end = Double.isInfinite(to) ? lastTime : to;
+        if (!(end > start)) {
+            end = start + 1;
+        }
+        int rows = Math.max(arrived, 1);
+        int height = LEGEND_HEIGHT + rows * (ROW_HEIGHT + ROW_GAP) + AXIS_HEIGHT;
+        BufferedImage image = new BufferedImage(WIDTH, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, height);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+        FontMetrics metrics = graphics.getFontMetrics();
+
+        int x = MARGIN;
+        for (int state : new int[]{RUNNING, READY, WAITING}) {
+            String name = Character.toUpperCase(STATE_NAMES[state].charAt(0)) + STATE_NAMES[state].substring(1);
+            graphics.setColor(STATE_COLORS[state]);
+            graphics.drawString(name, x, metrics.getAscent() + 2);
+            x += metrics.stringWidth(name) + 4 * MARGIN;
+        }
+
+        int left = MARGIN;
+        int right = WIDTH - MARGIN;
+        double scale = (right - left) / (end - start);
+        for (int p = 0; p < arrived; p++) {
+            int y = LEGEND_HEIGHT + p * (ROW_HEIGHT + ROW_GAP);
+            String label = Integer.toString(first + p + 1);
+            graphics.setColor(Color.BLACK);
+            graphics.drawString(label, left - 2 - metrics.stringWidth(label), y + ROW_HEIGHT - 1);
+            for (int i = 0; i < lengths[p]; i++) {
+                double a = Math.max(times[p][i], start);
+                double b = Math.min(end(p, i), end);
+                if (b > a) {
+                    int x0 = left + (int) Math.round((a - start) * scale);
+                    int x1 = left + (int) Math.round((b - start) * scale);
+                    graphics.setColor(STATE_COLORS[states[p][i]]);
+                    graphics.fillRect(x0, y, Math.max(1, x1 - x0), ROW_HEIGHT);
+                }
+            }
+        }
+
+        // Ticks over the rows, labelled below them
+        int bottom = LEGEND_HEIGHT + rows * (ROW_HEIGHT + ROW_GAP);
+        double step = tickStep(end - start);
+        graphics.setColor(Color.GRAY);
+        for (double tick = Math.ceil(start / step) * step; tick <= end; tick += step) {
+            int tx = left + (int) Math.round((tick - start) * scale);
+            graphics.drawLine(tx, LEGEND_HEIGHT - 4, tx, bottom + 4);
+            graphics.drawString(String.format(Locale.ROOT, "%.6g", tick).replaceAll("\\.?0+$", ""),
+                    tx + 2, bottom + 4 + metrics.getAscent());
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * @return A round step, 1, 2 or 5 times a power of ten, giving 2 to 5 ticks over the range
+     */
+    private static double tickStep(double range) {
+        double power = Math.pow(10, Math.floor(Math.log10(range / 2)));
+        for (double factor : new double[]{1, 2, 5}) {
+            if (range / (factor * power) <= 5) {
+                return factor * power;
+            }
+        }
+        return 10 * power;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            usage();
+            return;
+        }
+        Path logFile = Paths.get(args[0]);
+        int first = 1;
+        int count = 50;
+        double from = 0;
+        double to = Double.POSITIVE_INFINITY;
+        Path image = null;
+        int i = 1;
+        while (i < args.length) {
+            if (args[i].startsWith("--") && i + 1 >= args.length) {
+                usage();
+                return;
+            }
+            switch (args[i]) {
+                case "--first":
+                    first = Integer.parseInt(args[i + 1]);
+                    i += 2;
+                    break;
+                case "--count":
+                    count = Integer.parseInt(args[i + 1]);
+                    i += 2;
+                    break;
+                case "--from":
+                    from = Double.parseDouble(args[i + 1]);
+                    i += 2;
+                    break;
+                case "--to":
+                    to = Double.parseDouble(args[i + 1]);
+                    i += 2;
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        usage();
+                        return;
+                    }
+                    image = Paths.get(args[i]);
+                    i++;
+                    break;
+            }
+        }
+
+        GanttChart chart = new GanttChart(first - 1, count, from, to);
+        try (EventLog.Reader log = new EventLog.Reader(logFile)) {
+            chart.read(log);
+        }
+        if (image != null) {
+            ImageIO.write(chart.draw(), "png", image.toFile());
+        } else {
+            System.out.print(chart.timeline());
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: GanttChart log [--first N] [--count N] [--from T] [--to T] [chart.png]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,170 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.device.Device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Processors of the simulated machine, and how the load is balanced between them.
+ * <p/>
+ * Each core has its own ready queue. A process that becomes ready goes back to the core it last ran on; a new
+ * process goes to the least loaded core. Without load balancing, processes never change core afterwards.
+ * <ul>
+ * <li>Push migration: every balance interval, processes are moved from the most loaded queues to the least loaded
+ * ones until the loads differ by at most one.</li>
+ * <li>Work stealing: a core that becomes idle with an empty queue pulls a process from the most loaded queue.</li>
+ * </ul>
+ * Running a process on another core than the last one costs the migration cost, on top of cstin.
+ * <p/>
+ * The machine may also have I/O {@link Device}s, on which the processes of some blocks do their I/O bursts.
+ * <p/>
+ * In a .run file: {@code cores N}, {@code migrationcost T}, {@code balance none|push|steal|push steal},
+ * {@code balanceinterval T} and {@code device ...} lines.
+ */
+public class Machine {
+
+    /**
+     * Push migration interval used when none is given
+     */
+    public static final double DEFAULT_BALANCE_INTERVAL = 10;
+
+    private final int cores;
+    private final double migrationCost;
+    private final boolean pushMigration;
+    private final boolean workStealing;
+    private final double balanceInterval;
+    private final List<Device> devices;
+
+    /**
+     * @param cores           Number of cores
+     * @param migrationCost   Extra switch-in time when a process runs on another core than the last one
+     * @param pushMigration   Whether the load is balanced periodically
+     * @param workStealing    Whether idle cores pull processes from the other queues
+     * @param balanceInterval Time between two push migrations
+     */
+    public Machine(int cores, double migrationCost, boolean pushMigration, boolean workStealing,
+                   double balanceInterval) {
+        this(cores, migrationCost, pushMigration, workStealing, balanceInterval, Collections.<Device>emptyList());
+    }
+
+    /**
+     * @param devices The I/O devices, with distinct names
+     */
+    public Machine(int cores, double migrationCost, boolean pushMigration, boolean workStealing,
+                   double balanceInterval, List<Device> devices) {
+        if (cores < 1) {
+            throw new IllegalArgumentException("At least one core is needed");
+        }
+        if (migrationCost < 0) {
+            throw new IllegalArgumentException("The migration cost cannot be negative");
+        }
+        if (pushMigration && !(balanceInterval > 0)) {
+            throw new IllegalArgumentException("Push migration needs a positive balance interval");
+        }
+        this.cores = cores;
+        this.migrationCost = migrationCost;
+        this.pushMigration = pushMigration;
+        this.workStealing = workStealing;
+        this.balanceInterval = balanceInterval;
+        this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+        for (int d = 0; d < devices.size(); d++) {
+            if (indexOfDevice(devices.get(d).getName()) != d) {
+                throw new IllegalArgumentException("Duplicate I/O device " + devices.get(d).getName());
+            }
+        }
+    }
+
+    /**
+     * @param cores The new number of cores
+     * @return A copy of this machine with another number of cores
+     */
+    public Machine withCores(int cores) {
+        return new Machine(cores, migrationCost, pushMigration, workStealing, balanceInterval, devices);
+    }
+
+    /**
+     * @param balance The balancing policies, among "none", "push" and "steal", separated by spaces or commas
+     * @return A copy of this machine with other balancing policies
+     */
+    public Machine withBalance(String balance) {
+        boolean push = false;
+        boolean steal = false;
+        for (String policy : balance.trim().split("[\\s,]+")) {
+            switch (policy) {
+                case "none":
+                    break;
+                case "push":
+                    push = true;
+                    break;
+                case "steal":
+                    steal = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown balancing policy: " + policy);
+            }
+        }
+        double interval = push && balanceInterval == 0 ? DEFAULT_BALANCE_INTERVAL : balanceInterval;
+        return new Machine(cores, migrationCost, push, steal, interval, devices);
+    }
+
+    /**
+     * @param discipline The new discipline of the devices
+     * @return A copy of this machine whose devices all serve their requests in another order
+     */
+    public Machine withDiscipline(Device.Discipline discipline) {
+        List<Device> changed = new ArrayList<>();
+        for (Device device : devices) {
+            changed.add(device.withDiscipline(discipline));
+        }
+        return new Machine(cores, migrationCost, pushMigration, workStealing, balanceInterval, changed);
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public double getMigrationCost() {
+        return migrationCost;
+    }
+
+    public boolean isPushMigration() {
+        return pushMigration;
+    }
+
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    public double getBalanceInterval() {
+        return balanceInterval;
+    }
+
+    public List<Device> getDevices() {
+        return devices;
+    }
+
+    /**
+     * @return The index of the device with the given name, -1 if there is none
+     */
+    public int indexOfDevice(String name) {
+        for (int d = 0; d < devices.size(); d++) {
+            if (devices.get(d).getName().equals(name)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        String balance = pushMigration ? (workStealing ? "push steal" : "push") : (workStealing ? "steal" : "none");
+        StringBuilder builder = new StringBuilder(cores + " core(s), balance " + balance + ", migration cost "
+                + migrationCost);
+        for (Device device : devices) {
+            builder.append(", device ").append(device);
+        }
+        return builder.toString();
+    }
+}
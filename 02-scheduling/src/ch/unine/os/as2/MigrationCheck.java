@@ -0,0 +1,50 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.scheduler.Algorithm;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Regression run of the load balancing: simulates high_load on several cores with each balancing policy and
+ * checks that processes are not migrated on most dispatches.
+ * <p/>
+ * Work stealing used to take the process just preempted from a core that was only switching it out, so that with
+ * Round Robin almost every dispatch was a migration. A core now only steals from a core running another process,
+ * and a small share of the dispatches migrate.
+ * <p/>
+ * Usage: MigrationCheck [directory of the .run files]. Exits with status 1 if a run migrates too much.
+ */
+public class MigrationCheck {
+
+    private static final String WORKLOAD = "high_load";
+    private static final int SCALE = 10;
+    private static final int CORES = 4;
+    private static final String ALGORITHM = "RR 1";
+    private static final String[] BALANCES = {"push", "steal", "push,steal"};
+    /**
+     * Largest share of the dispatches that may migrate a process
+     */
+    private static final double MAX_MIGRATION_RATIO = 0.1;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "ps_files");
+        Workload workload = Workload.parse(directory.resolve(WORKLOAD + ".run")).scaled(SCALE);
+        boolean failed = false;
+        System.out.printf("%-12s %12s %12s %8s%n", "balance", "dispatches", "migrations", "ratio");
+        for (String balance : BALANCES) {
+            Workload balanced = workload.withMachine(workload.getMachine().withCores(CORES).withBalance(balance));
+            SimulationResult result = new Simulator(balanced, Algorithm.parse(ALGORITHM)).run();
+            double ratio = (double) result.getMigrations() / result.getContextSwitches();
+            boolean ok = ratio <= MAX_MIGRATION_RATIO;
+            failed |= !ok;
+            System.out.printf(Locale.ROOT, "%-12s %12d %12d %8.4f%s%n", balance, result.getContextSwitches(),
+                    result.getMigrations(), ratio, ok ? "" : "  <- more than " + MAX_MIGRATION_RATIO);
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
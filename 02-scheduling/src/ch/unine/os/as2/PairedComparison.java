@@ -0,0 +1,128 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.stats.PairedStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Comparison of the algorithms of experiments with common random numbers.
+ * <p/>
+ * Replication r of every run of a workload uses the same seed, and the simulator draws the arrivals, durations
+ * and bursts of each process from streams that do not depend on the algorithm, so the runs of a replication
+ * simulate the same realization of the workload. The value of a metric under an algorithm is paired with its
+ * value under the first algorithm of the workload in the same replication, and the confidence interval of the
+ * mean difference only reflects how the algorithms react to the realizations, not how much the realizations
+ * themselves vary.
+ */
+public class PairedComparison {
+
+    /**
+     * Differences between the runs of one algorithm and those of the reference of the same workload
+     */
+    public static class Difference {
+        private final String workload;
+        private final String baseline;
+        private final String key;
+        private final PairedStatistics statistics = new PairedStatistics();
+
+        Difference(String workload, String baseline, String key) {
+            this.workload = workload;
+            this.baseline = baseline;
+            this.key = key;
+        }
+
+        public String getWorkload() {
+            return workload;
+        }
+
+        /**
+         * @return The key of the reference run
+         */
+        public String getBaseline() {
+            return baseline;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public PairedStatistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    private final QuantumSweep.Metric metric;
+    private final double confidence;
+
+    /**
+     * @param metric     The compared metric
+     * @param confidence Confidence level of the intervals, e.g. 0.95
+     */
+    public PairedComparison(QuantumSweep.Metric metric, double confidence) {
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("The confidence level must be between 0 and 1");
+        }
+        this.metric = metric;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Pair the runs of each workload with its first run
+     *
+     * @param rows         Rows of an {@link ExperimentRunner}, grouped by run, in the order of the replications
+     * @param replications Number of replications of each run, at least 2
+     * @return One difference per run that is not the first of its workload, in the order of the runs
+     */
+    public List<Difference> compare(List<ExperimentRunner.Row> rows, int replications) {
+        if (replications < 2) {
+            throw new IllegalArgumentException("A paired comparison needs at least two replications");
+        }
+        Map<String, double[]> baselineValues = new HashMap<>();
+        Map<String, String> baselineKeys = new HashMap<>();
+        List<Difference> differences = new ArrayList<>();
+        for (int start = 0; start + replications <= rows.size(); start += replications) {
+            ExperimentRunner.Row first = rows.get(start);
+            String workload = first.getResult().getWorkload();
+            double[] baseline = baselineValues.get(workload);
+            if (baseline == null) {
+                baseline = new double[replications];
+                for (int r = 0; r < replications; r++) {
+                    baseline[r] = metric.of(rows.get(start + r).getResult());
+                }
+                baselineValues.put(workload, baseline);
+                baselineKeys.put(workload, first.getKey());
+                continue;
+            }
+            Difference difference = new Difference(workload, baselineKeys.get(workload), first.getKey());
+            for (int r = 0; r < replications; r++) {
+                difference.statistics.add(baseline[r], metric.of(rows.get(start + r).getResult()));
+            }
+            differences.add(difference);
+        }
+        return Collections.unmodifiableList(differences);
+    }
+
+    /**
+     * @return A table of the differences, their paired confidence intervals, and the unpaired ones for comparison
+     */
+    public String table(List<Difference> differences) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "# %s minus that of the first run of the workload, %.0f%% confidence%n",
+                metric, confidence * 100));
+        table.append(String.format("%-28s %-12s %-12s %12s %12s %12s %10s%n",
+                "workload", "key", "baseline", "difference", "paired +-", "unpaired +-", "var. ratio"));
+        for (Difference difference : differences) {
+            PairedStatistics statistics = difference.getStatistics();
+            table.append(String.format(Locale.ROOT, "%-28s %-12s %-12s %12.4f %12.4f %12.4f %10.1f%n",
+                    difference.getWorkload(), difference.getKey(), difference.getBaseline(),
+                    statistics.getMeanDifference(), statistics.halfWidth(confidence),
+                    statistics.unpairedHalfWidth(confidence), statistics.getVarianceReduction()));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package ch.unine.os.as2;
+
+import java.util.Arrays;
+
+/**
+ * Event queue stored as a pairing heap, ordered by event time, then by insertion order.
+ * <p/>
+ * Adding an event is O(1) and removing the earliest one is O(log n) amortized, with a two-pass merge of the
+ * children of the root. Nodes live in parallel primitive arrays and are recycled through a free list.
+ */
+public class PairingHeapEventQueue implements EventQueue {
+    private static final int NONE = -1;
+
+    private double[] times;
+    private long[] sequences;
+    private int[] types;
+    private int[] payloads;
+    private int[] children;
+    private int[] siblings;
+    private int root = NONE;
+    private int size;
+    private long nextSequence;
+    /**
+     * First free node, linked through the siblings
+     */
+    private int free = NONE;
+    private int used;
+    /**
+     * Scratch space of the two-pass merge
+     */
+    private int[] pairs = new int[64];
+
+    public PairingHeapEventQueue() {
+        this(64);
+    }
+
+    public PairingHeapEventQueue(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 2);
+        times = new double[capacity];
+        sequences = new long[capacity];
+        types = new int[capacity];
+        payloads = new int[capacity];
+        children = new int[capacity];
+        siblings = new int[capacity];
+    }
+
+    @Override
+    public void add(double time, int type, int payload) {
+        int node;
+        if (free != NONE) {
+            node = free;
+            free = siblings[node];
+        } else {
+            if (used == times.length) {
+                grow();
+            }
+            node = used++;
+        }
+        times[node] = time;
+        sequences[node] = nextSequence++;
+        types[node] = type;
+        payloads[node] = payload;
+        children[node] = NONE;
+        siblings[node] = NONE;
+        root = root == NONE ? node : link(root, node);
+        size++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double peekTime() {
+        return times[root];
+    }
+
+    @Override
+    public int peekType() {
+        return types[root];
+    }
+
+    @Override
+    public int peekPayload() {
+        return payloads[root];
+    }
+
+    @Override
+    public void remove() {
+        if (size == 0) {
+            throw new IllegalStateException("No event");
+        }
+        int old = root;
+        root = mergePairs(children[old]);
+        siblings[old] = free;
+        free = old;
+        size--;
+    }
+
+    /**
+     * Merge the children of a removed root: link them by pairs from left to right,
+     * then link the pairs from right to left
+     */
+    private int mergePairs(int first) {
+        if (first == NONE) {
+            return NONE;
+        }
+        int count = 0;
+        int node = first;
+        while (node != NONE) {
+            int a = node;
+            int b = siblings[a];
+            int next = b != NONE ? siblings[b] : NONE;
+            siblings[a] = NONE;
+            if (b != NONE) {
+                siblings[b] = NONE;
+                a = link(a, b);
+            }
+            if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, count * 2);
+            }
+            pairs[count++] = a;
+            node = next;
+        }
+        int result = pairs[--count];
+        while (count > 0) {
+            result = link(pairs[--count], result);
+        }
+        return result;
+    }
+
+    /**
+     * @return The root of the heap made of two heaps, the later root becoming the first child of the earlier one
+     */
+    private int link(int a, int b) {
+        if (before(b, a)) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        siblings[b] = children[a];
+        children[a] = b;
+        return a;
+    }
+
+    private boolean before(int a, int b) {
+        return times[a] < times[b] || (times[a] == times[b] && sequences[a] < sequences[b]);
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        types = Arrays.copyOf(types, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        children = Arrays.copyOf(children, capacity);
+        siblings = Arrays.copyOf(siblings, capacity);
+    }
+}
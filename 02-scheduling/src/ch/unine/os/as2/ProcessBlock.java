@@ -0,0 +1,92 @@
+package ch.unine.os.as2;
+
+/**
+ * A group of processes sharing the same characteristics, introduced by a {@code numprocs} line in a .run file.
+ * <p/>
+ * The first process of the block arrives at {@code firstarrival}, the following ones after {@code interarrival}.
+ * Each process needs {@code duration} units of CPU time in total, split in CPU bursts drawn from {@code cpuburst}
+ * and separated by I/O bursts drawn from {@code ioburst}.
+ * <p/>
+ * Optionally, each process must complete within {@code deadline} units of time after its arrival, and its I/O
+ * bursts are served by the device named by {@code iodevice} instead of being pure delays.
+ */
+public class ProcessBlock {
+    private final int numProcs;
+    private final double firstArrival;
+    private final Distribution interArrival;
+    private final Distribution duration;
+    private final Distribution cpuBurst;
+    private final Distribution ioBurst;
+    private final int basePriority;
+    private final Distribution deadline;
+    private final String device;
+
+    /**
+     * @param deadline Relative deadline of the processes, or null if they have none
+     * @param device   Name of the device serving the I/O bursts, or null if they are pure delays
+     */
+    public ProcessBlock(int numProcs, double firstArrival, Distribution interArrival, Distribution duration,
+                        Distribution cpuBurst, Distribution ioBurst, int basePriority, Distribution deadline,
+                        String device) {
+        this.numProcs = numProcs;
+        this.firstArrival = firstArrival;
+        this.interArrival = interArrival;
+        this.duration = duration;
+        this.cpuBurst = cpuBurst;
+        this.ioBurst = ioBurst;
+        this.basePriority = basePriority;
+        this.deadline = deadline;
+        this.device = device;
+    }
+
+    /**
+     * @param factor Multiplier of the number of processes
+     * @return A copy of this block with factor times more processes
+     */
+    public ProcessBlock scaled(int factor) {
+        return new ProcessBlock(Math.multiplyExact(numProcs, factor), firstArrival, interArrival, duration,
+                cpuBurst, ioBurst, basePriority, deadline, device);
+    }
+
+    public int getNumProcs() {
+        return numProcs;
+    }
+
+    public double getFirstArrival() {
+        return firstArrival;
+    }
+
+    public Distribution getInterArrival() {
+        return interArrival;
+    }
+
+    public Distribution getDuration() {
+        return duration;
+    }
+
+    public Distribution getCpuBurst() {
+        return cpuBurst;
+    }
+
+    public Distribution getIoBurst() {
+        return ioBurst;
+    }
+
+    public int getBasePriority() {
+        return basePriority;
+    }
+
+    /**
+     * @return Distribution of the time between the arrival of a process and its deadline, or null if none
+     */
+    public Distribution getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return Name of the device serving the I/O bursts, or null if they are pure delays
+     */
+    public String getDevice() {
+        return device;
+    }
+}
@@ -0,0 +1,464 @@
+package ch.unine.os.as2;
+
+import java.util.Arrays;
+
+/**
+ * State of the processes alive in a simulation, stored in primitive arrays indexed by pid.
+ * <p/>
+ * There is no object per process: a process is a pid, and its arrival, CPU accounting, ready queue bookkeeping,
+ * class, state and core are entries of the arrays, 76 bytes in total. As in an operating system, the pid of a completed
+ * process is reused by a later one, so the arrays grow with the number of processes alive at the same time and
+ * not with the size of the workload. The serial number, unique over the run, tells processes apart across reuses.
+ * <p/>
+ * Each event of the simulation touches most fields of one process, chosen at random among those alive, so the
+ * fields used at each event are kept together in a record of 8 longs, the size of a cache line: doubles are
+ * stored as their bits, and the class, core and state share one long. One array per field would cost one cache
+ * miss per field instead. The records are allocated by pages of {@value #PAGE} processes, so the table grows
+ * without copying them. The serial number, read by few algorithms, and the position of the process in its random
+ * stream, read at the end of each burst, have their own arrays. The base priority is the
+ * one of the process class; deadlines, recorded bursts and I/O requests to devices only get arrays in the
+ * workloads that have them, and the burst estimate only once an algorithm sets one.
+ * <p/>
+ * The simulator updates the burst and time accounting; schedulers only read it,
+ * except for the estimate which belongs to the algorithms that predict bursts.
+ */
+public class ProcessTable {
+
+    /**
+     * Pid returned when there is no process
+     */
+    public static final int NONE = -1;
+
+    /*
+     * Process states
+     */
+    public static final byte FREE = 0;
+    public static final byte READY = 1;
+    public static final byte RUNNING = 2;
+    public static final byte BLOCKED = 3;
+
+    /*
+     * Fields of the records
+     */
+    private static final int RECORD = 8;
+    private static final int ARRIVAL = 0;
+    /**
+     * CPU time still needed before the process completes
+     */
+    private static final int CPU_REMAINING = 1;
+    /**
+     * Length of the current CPU burst, and what remains of it
+     */
+    private static final int BURST_LENGTH = 2;
+    private static final int BURST_REMAINING = 3;
+    /**
+     * When the process last entered the ready queue, and in which order
+     */
+    private static final int READY_SINCE = 4;
+    private static final int READY_SEQUENCE = 5;
+    /**
+     * Total time spent in the ready queue
+     */
+    private static final int WAITING_TIME = 6;
+    /**
+     * Class in the low 32 bits, then the core (plus one, 0 if the process never ran) on 24 bits, then the state
+     */
+    private static final int FLAGS = 7;
+    private static final int CORE_SHIFT = 32;
+    private static final long CORE_MASK = 0xFFFFFFL;
+    private static final int STATE_SHIFT = 56;
+
+    /**
+     * Processes per page of records
+     */
+    private static final int PAGE = 4096;
+    private static final int PAGE_BITS = 12;
+
+    /**
+     * Base priority of each process class
+     */
+    private final int[] classPriorities;
+
+    private long[][] pages;
+    private int capacity;
+    private int[] serials;
+    /**
+     * Position of each process in its stream of bursts, see {@link RandomStream#position(long)}
+     */
+    private long[] randomPositions;
+    /**
+     * Absolute deadlines, null if the workload has none
+     */
+    private double[] deadlines;
+    /**
+     * Predicted length of the next CPU burst, null until an algorithm predicts one
+     */
+    private double[] estimates;
+    /**
+     * Recorded bursts of traced processes, alternately CPU and I/O, and the next one; null without a trace
+     */
+    private double[][] recordedBursts;
+    private int[] nextBursts;
+    /**
+     * Cylinder and transfer time of the pending I/O request of each process, and when it was made;
+     * null without devices
+     */
+    private int[] cylinders;
+    private double[] transferTimes;
+    private double[] requestTimes;
+
+    /**
+     * Pids of completed processes, reused last in first out
+     */
+    private int[] freePids;
+    private int freeCount;
+    /**
+     * Number of pids ever used, and of processes alive
+     */
+    private int used;
+    private int size;
+    private int nextSerial;
+
+    /**
+     * @param classPriorities Base priority of each process class
+     * @param deadlines       Whether processes may have deadlines
+     * @param traced          Whether processes may replay recorded bursts
+     * @param devices         Whether processes may do I/O on devices
+     */
+    public ProcessTable(int[] classPriorities, boolean deadlines, boolean traced, boolean devices) {
+        this.classPriorities = classPriorities.clone();
+        capacity = PAGE;
+        pages = new long[16][];
+        pages[0] = new long[PAGE * RECORD];
+        serials = new int[capacity];
+        randomPositions = new long[capacity];
+        if (deadlines) {
+            this.deadlines = new double[capacity];
+        }
+        if (traced) {
+            recordedBursts = new double[capacity][];
+            nextBursts = new int[capacity];
+        }
+        if (devices) {
+            cylinders = new int[capacity];
+            transferTimes = new double[capacity];
+            requestTimes = new double[capacity];
+        }
+        freePids = new int[64];
+    }
+
+    /**
+     * Create a process of a block
+     *
+     * @param block    Process class
+     * @param arrival  Arrival time
+     * @param duration Total CPU time needed
+     * @param deadline Absolute deadline, infinite for none
+     * @return The pid of the new process
+     */
+    int create(int block, double arrival, double duration, double deadline) {
+        if (deadlines == null && deadline != Double.POSITIVE_INFINITY) {
+            throw new IllegalStateException("This table does not hold deadlines");
+        }
+        int pid = allocate(block, arrival, duration);
+        if (deadlines != null) {
+            deadlines[pid] = deadline;
+        }
+        return pid;
+    }
+
+    /**
+     * Create a process replaying recorded bursts; its duration is the sum of its CPU bursts
+     *
+     * @return The pid of the new process
+     */
+    int createTraced(int block, double arrival, double[] bursts) {
+        if (recordedBursts == null) {
+            throw new IllegalStateException("This table does not hold traced processes");
+        }
+        double duration = 0;
+        for (int i = 0; i < bursts.length; i += 2) {
+            duration += bursts[i];
+        }
+        int pid = allocate(block, arrival, duration);
+        recordedBursts[pid] = bursts;
+        nextBursts[pid] = 0;
+        if (deadlines != null) {
+            deadlines[pid] = Double.POSITIVE_INFINITY;
+        }
+        return pid;
+    }
+
+    private int allocate(int block, double arrival, double duration) {
+        int pid;
+        if (freeCount > 0) {
+            pid = freePids[--freeCount];
+        } else {
+            if (used == capacity()) {
+                grow();
+            }
+            pid = used++;
+        }
+        serials[pid] = nextSerial++;
+        long[] page = pages[pid >>> PAGE_BITS];
+        int offset = (pid & (PAGE - 1)) * RECORD;
+        Arrays.fill(page, offset, offset + RECORD, 0);
+        page[offset + FLAGS] = (block & 0xFFFFFFFFL) | (long) BLOCKED << STATE_SHIFT;
+        set(pid, ARRIVAL, arrival);
+        set(pid, CPU_REMAINING, duration);
+        if (estimates != null) {
+            estimates[pid] = Double.NaN;
+        }
+        size++;
+        return pid;
+    }
+
+    /**
+     * Forget a completed process; its pid may be reused
+     */
+    void free(int pid) {
+        setState(pid, FREE);
+        if (recordedBursts != null) {
+            recordedBursts[pid] = null;
+        }
+        if (freeCount == freePids.length) {
+            freePids = Arrays.copyOf(freePids, freeCount * 2);
+        }
+        freePids[freeCount++] = pid;
+        size--;
+    }
+
+    /**
+     * @return The number of processes alive
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An upper bound of the pids in use
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return true if the bursts of this process come from a trace
+     */
+    boolean isTraced(int pid) {
+        return recordedBursts != null && recordedBursts[pid] != null;
+    }
+
+    /**
+     * @return The next recorded burst, 0 after the last one
+     */
+    double nextRecordedBurst(int pid) {
+        double[] bursts = recordedBursts[pid];
+        return nextBursts[pid] < bursts.length ? bursts[nextBursts[pid]++] : 0;
+    }
+
+    /**
+     * Start a new CPU burst, truncated to the CPU time the process still needs
+     */
+    void startBurst(int pid, double length) {
+        double burst = Math.min(length, get(pid, CPU_REMAINING));
+        set(pid, BURST_LENGTH, burst);
+        set(pid, BURST_REMAINING, burst);
+    }
+
+    /**
+     * Account for time spent on the CPU
+     */
+    void run(int pid, double time) {
+        set(pid, BURST_REMAINING, get(pid, BURST_REMAINING) - time);
+        set(pid, CPU_REMAINING, get(pid, CPU_REMAINING) - time);
+    }
+
+    /**
+     * Record the I/O request of a process blocking on a device
+     */
+    void requestIo(int pid, int cylinder, double transferTime, double now) {
+        cylinders[pid] = cylinder;
+        transferTimes[pid] = transferTime;
+        requestTimes[pid] = now;
+    }
+
+    int getCylinder(int pid) {
+        return cylinders[pid];
+    }
+
+    double getTransferTime(int pid) {
+        return transferTimes[pid];
+    }
+
+    double getRequestTime(int pid) {
+        return requestTimes[pid];
+    }
+
+    void enterReadyQueue(int pid, double now, long sequence) {
+        setState(pid, READY);
+        set(pid, READY_SINCE, now);
+        setLong(pid, READY_SEQUENCE, sequence);
+    }
+
+    void leaveReadyQueue(int pid, double now) {
+        setState(pid, RUNNING);
+        set(pid, WAITING_TIME, get(pid, WAITING_TIME) + (now - get(pid, READY_SINCE)));
+    }
+
+    void setState(int pid, byte state) {
+        setLong(pid, FLAGS, (getLong(pid, FLAGS) & ~(0xFFL << STATE_SHIFT)) | (long) state << STATE_SHIFT);
+    }
+
+    void setCore(int pid, int core) {
+        setLong(pid, FLAGS, (getLong(pid, FLAGS) & ~(CORE_MASK << CORE_SHIFT)) | (long) (core + 1) << CORE_SHIFT);
+    }
+
+    long getRandomPosition(int pid) {
+        return randomPositions[pid];
+    }
+
+    void setRandomPosition(int pid, long position) {
+        randomPositions[pid] = position;
+    }
+
+    /**
+     * @return A number unique over the run, increasing with the creation of the processes
+     */
+    public int getSerial(int pid) {
+        return serials[pid];
+    }
+
+    /**
+     * @return FREE, READY, RUNNING or BLOCKED (arriving or doing I/O)
+     */
+    public byte getState(int pid) {
+        return (byte) (getLong(pid, FLAGS) >>> STATE_SHIFT);
+    }
+
+    /**
+     * @return Index of the process block (in the .run file) this process comes from
+     */
+    public int getBlock(int pid) {
+        return (int) getLong(pid, FLAGS);
+    }
+
+    public double getArrivalTime(int pid) {
+        return get(pid, ARRIVAL);
+    }
+
+    public int getBasePriority(int pid) {
+        return classPriorities[getBlock(pid)];
+    }
+
+    /**
+     * @return The absolute time by which the process should complete, infinite if it has no deadline
+     */
+    public double getDeadline(int pid) {
+        return deadlines != null ? deadlines[pid] : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean hasDeadline(int pid) {
+        return getDeadline(pid) != Double.POSITIVE_INFINITY;
+    }
+
+    public double getCpuRemaining(int pid) {
+        return get(pid, CPU_REMAINING);
+    }
+
+    public double getBurstLength(int pid) {
+        return get(pid, BURST_LENGTH);
+    }
+
+    public double getBurstRemaining(int pid) {
+        return get(pid, BURST_REMAINING);
+    }
+
+    public double getReadySince(int pid) {
+        return get(pid, READY_SINCE);
+    }
+
+    /**
+     * @return A number increasing each time a process becomes ready, to break ties in FIFO order
+     */
+    public long getReadySequence(int pid) {
+        return getLong(pid, READY_SEQUENCE);
+    }
+
+    public double getWaitingTime(int pid) {
+        return get(pid, WAITING_TIME);
+    }
+
+    /**
+     * @return The core the process last ran on, or -1 if it never ran
+     */
+    public int getCore(int pid) {
+        return (int) ((getLong(pid, FLAGS) >>> CORE_SHIFT) & CORE_MASK) - 1;
+    }
+
+    /**
+     * @return The predicted length of the next CPU burst, NaN until predicted
+     */
+    public double getEstimate(int pid) {
+        return estimates != null ? estimates[pid] : Double.NaN;
+    }
+
+    public void setEstimate(int pid, double estimate) {
+        if (estimates == null) {
+            // Same length as the other per-process arrays, which grow() only resizes once capacity exceeds them
+            estimates = new double[serials.length];
+            Arrays.fill(estimates, Double.NaN);
+        }
+        estimates[pid] = estimate;
+    }
+
+    private long getLong(int pid, int field) {
+        return pages[pid >>> PAGE_BITS][(pid & (PAGE - 1)) * RECORD + field];
+    }
+
+    private void setLong(int pid, int field, long value) {
+        pages[pid >>> PAGE_BITS][(pid & (PAGE - 1)) * RECORD + field] = value;
+    }
+
+    private double get(int pid, int field) {
+        return Double.longBitsToDouble(getLong(pid, field));
+    }
+
+    private void set(int pid, int field, double value) {
+        setLong(pid, field, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Add a page of records; the other per-process arrays, smaller, double
+     */
+    private void grow() {
+        int page = capacity >>> PAGE_BITS;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, page * 2);
+        }
+        pages[page] = new long[PAGE * RECORD];
+        capacity += PAGE;
+        if (capacity > serials.length) {
+            int length = Math.max(capacity, serials.length * 2);
+            serials = Arrays.copyOf(serials, length);
+            randomPositions = Arrays.copyOf(randomPositions, length);
+            if (deadlines != null) {
+                deadlines = Arrays.copyOf(deadlines, length);
+            }
+            if (estimates != null) {
+                int old = estimates.length;
+                estimates = Arrays.copyOf(estimates, length);
+                Arrays.fill(estimates, old, length, Double.NaN);
+            }
+            if (recordedBursts != null) {
+                recordedBursts = Arrays.copyOf(recordedBursts, length);
+                nextBursts = Arrays.copyOf(nextBursts, length);
+            }
+            if (cylinders != null) {
+                cylinders = Arrays.copyOf(cylinders, length);
+                transferTimes = Arrays.copyOf(transferTimes, length);
+                requestTimes = Arrays.copyOf(requestTimes, length);
+            }
+        }
+    }
+}
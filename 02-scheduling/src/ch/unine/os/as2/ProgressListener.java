@@ -0,0 +1,14 @@
+package ch.unine.os.as2;
+
+/**
+ * Receives snapshots of the statistics while a simulation is running
+ */
+public interface ProgressListener {
+
+    /**
+     * Called from the simulation thread, at regular intervals of simulated time
+     *
+     * @param snapshot The statistics of the processes completed so far; it is not modified afterwards
+     */
+    void progress(SimulationResult snapshot);
+}
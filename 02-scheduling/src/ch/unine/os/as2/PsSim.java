@@ -0,0 +1,294 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.device.Device;
+import ch.unine.os.as2.scheduler.Algorithm;
+import ch.unine.os.as2.stats.ClassStatistics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point of the process scheduling simulator.
+ * <p/>
+ * Usage:
+ * <pre>
+ * PsSim [options] [--progress T] [--log FILE] workload.run [algorithm [parameters...]]
+ * PsSim [options] [--threads T] [--replications R] [--paired METRIC] experiment.exp [experiment.exp...]
+ * PsSim [options] [--threads T] [--replications R] --sweep METRIC MIN MAX [--points N] [--rounds K] workload.run
+ * </pre>
+ * Options common to all forms: {@code --scale N}, {@code --cores N}, {@code --balance none|push|steal|push,steal}
+ * and {@code --discipline FIFO|SSTF|SCAN}.
+ * A .run file is simulated with the given algorithm, or with the one written in the file, and the statistics of
+ * each process block are detailed. {@code --progress T} prints the statistics every T units of simulated time.
+ * {@code --log FILE} records the scheduling events of the run in FILE, to be viewed with {@link GanttChart}.
+ * {@code --scale N} multiplies the number of processes of every workload by N. {@code --cores} and
+ * {@code --balance} override the machine described in the workloads, and {@code --discipline} the order in which
+ * all its I/O devices serve their requests.
+ * <p/>
+ * The lines of .exp files are run in parallel on T threads (all the processors by default), R times each
+ * with seeds derived from the workload seed, and their results are merged into one table. Runs with deadlines
+ * get a second table with their deadline miss ratio and lateness. {@code --paired} compares the algorithms with
+ * common random numbers: all the runs of a replication simulate the same realization of the workload, and the
+ * METRIC of each run is paired with the one of the first run of its workload, see {@link PairedComparison}.
+ * <p/>
+ * {@code --sweep} searches the Round Robin quantum between MIN and MAX that optimizes METRIC (turnaround, waiting,
+ * turnaround_p99, waiting_p99, throughput or utilization), see {@link QuantumSweep}. N quanta are simulated in
+ * parallel at each of the K rounds (9 and 3 by default), and the whole response curve is printed.
+ */
+public class PsSim {
+
+    /**
+     * Confidence level of the paired comparisons
+     */
+    private static final double CONFIDENCE = 0.95;
+
+    public static void main(String[] args) throws IOException {
+        int scale = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int replications = 1;
+        double progress = 0;
+        Path logFile = null;
+        int cores = 0;
+        String balance = null;
+        Device.Discipline discipline = null;
+        String sweepMetric = null;
+        String pairedMetric = null;
+        double sweepMin = 0;
+        double sweepMax = 0;
+        int points = 9;
+        int rounds = 3;
+        int i = 0;
+        while (i < args.length && args[i].startsWith("--")) {
+            if (i + 1 >= args.length) {
+                usage();
+                return;
+            }
+            if (args[i].equals("--scale")) {
+                scale = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--replications")) {
+                replications = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--cores")) {
+                cores = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--balance")) {
+                balance = args[i + 1];
+                i += 2;
+            } else if (args[i].equals("--discipline")) {
+                discipline = Device.Discipline.parse(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--sweep")) {
+                if (i + 3 >= args.length) {
+                    usage();
+                    return;
+                }
+                sweepMetric = args[i + 1];
+                sweepMin = Double.parseDouble(args[i + 2]);
+                sweepMax = Double.parseDouble(args[i + 3]);
+                i += 4;
+            } else if (args[i].equals("--paired")) {
+                pairedMetric = args[i + 1];
+                i += 2;
+            } else if (args[i].equals("--points")) {
+                points = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--rounds")) {
+                rounds = Integer.parseInt(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--progress")) {
+                progress = Double.parseDouble(args[i + 1]);
+                i += 2;
+            } else if (args[i].equals("--log")) {
+                logFile = Paths.get(args[i + 1]);
+                i += 2;
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (i >= args.length) {
+            usage();
+            return;
+        }
+
+        Path file = Paths.get(args[i]);
+        if (sweepMetric != null) {
+            Workload workload = configure(Workload.parse(file).scaled(scale), cores, balance, discipline);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            QuantumSweep sweep = new QuantumSweep(new ExperimentRunner(pool, replications),
+                    QuantumSweep.Metric.parse(sweepMetric), points, rounds);
+            runSweep(sweep, workload, sweepMin, sweepMax);
+            pool.shutdown();
+        } else if (file.toString().endsWith(".exp")) {
+            PairedComparison comparison = pairedMetric != null
+                    ? new PairedComparison(QuantumSweep.Metric.parse(pairedMetric), CONFIDENCE) : null;
+            runExperiments(args, i, scale, cores, balance, discipline, threads, replications, comparison);
+        } else {
+            Workload workload = configure(Workload.parse(file).scaled(scale), cores, balance, discipline);
+            Algorithm algorithm = i + 1 < args.length
+                    ? Algorithm.parse(args, i + 1, args.length)
+                    : Algorithm.parse(workload.getAlgorithm());
+            Simulator simulator = new Simulator(workload, algorithm);
+            if (progress > 0) {
+                System.err.println(SimulationResult.header());
+                simulator.setProgressListener(snapshot -> System.err.println(
+                        snapshot.toRow(String.format(Locale.ROOT, "t=%.0f", snapshot.getTotalTime()))), progress);
+            }
+            EventLog.Writer log = logFile != null ? new EventLog.Writer(logFile, EventLog.DEFAULT_RESOLUTION) : null;
+            simulator.setEventLog(log);
+            long start = System.nanoTime();
+            SimulationResult result;
+            try {
+                result = simulator.run();
+            } finally {
+                if (log != null) {
+                    log.close();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.println(SimulationResult.header());
+            System.out.println(result);
+            System.out.println();
+            System.out.print(result.classTable());
+            if (result.hasDeadlines()) {
+                System.out.println();
+                System.out.print(result.deadlineTable());
+                System.out.println();
+                System.out.println("lateness of all the processes with a deadline");
+                System.out.print(result.getOverall().getLatenessHistogram().toText());
+            }
+            if (result.getCores() > 1) {
+                System.out.println();
+                System.out.println(workload.getMachine() + ", " + result.getMigrations() + " migration(s)");
+                System.out.print(result.coreTable());
+            }
+            if (!result.getDevices().isEmpty()) {
+                System.out.println();
+                System.out.print(result.deviceTable());
+            }
+            System.err.printf("%d processes, %d events in %.3f s%n",
+                    result.getCompleted(), result.getEvents(), elapsed / 1e9);
+            if (log != null) {
+                System.err.printf("%d records logged in %s, %d bytes%n",
+                        log.getRecords(), logFile, Files.size(logFile));
+            }
+        }
+    }
+
+    /**
+     * Apply the machine options of the command line to a workload
+     */
+    private static Workload configure(Workload workload, int cores, String balance, Device.Discipline discipline) {
+        Machine machine = workload.getMachine();
+        if (cores > 0) {
+            machine = machine.withCores(cores);
+        }
+        if (balance != null) {
+            machine = machine.withBalance(balance);
+        }
+        if (discipline != null) {
+            machine = machine.withDiscipline(discipline);
+        }
+        return workload.withMachine(machine);
+    }
+
+    private static void runExperiments(String[] args, int from, int scale, int cores, String balance,
+                                       Device.Discipline discipline, int threads, int replications,
+                                       PairedComparison comparison) throws IOException {
+        if (comparison != null && replications < 2) {
+            throw new IllegalArgumentException("A paired comparison needs at least two replications");
+        }
+        List<Experiment> experiments = new ArrayList<>();
+        for (int i = from; i < args.length; i++) {
+            Experiment experiment = Experiment.parse(Paths.get(args[i]), scale);
+            if (cores > 0 || balance != null || discipline != null) {
+                List<Experiment.Run> runs = new ArrayList<>();
+                for (Experiment.Run run : experiment.getRuns()) {
+                    Workload workload = configure(run.getWorkload(), cores, balance, discipline);
+                    runs.add(new Experiment.Run(workload, run.getAlgorithm(), run.getKey()));
+                }
+                experiment = new Experiment(experiment.getName(), experiment.getComment(), runs);
+            }
+            experiments.add(experiment);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        List<ExperimentRunner.Row> rows = new ExperimentRunner(pool, replications).run(experiments);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        System.out.println(SimulationResult.header());
+        long simulationNanos = 0;
+        for (ExperimentRunner.Row row : rows) {
+            String key = replications > 1 ? row.getKey() + "#" + row.getReplication() : row.getKey();
+            System.out.println(row.getResult().toRow(key));
+            simulationNanos += row.getElapsedNanos();
+        }
+        boolean deadlines = false;
+        for (ExperimentRunner.Row row : rows) {
+            deadlines |= row.getResult().hasDeadlines();
+        }
+        if (deadlines) {
+            System.out.println();
+            System.out.printf("%-28s %-12s %10s %10s %10s %10s%n",
+                    "workload", "key", "deadlines", "miss ratio", "late mean", "tard. p99");
+            for (ExperimentRunner.Row row : rows) {
+                SimulationResult result = row.getResult();
+                if (result.hasDeadlines()) {
+                    String key = replications > 1 ? row.getKey() + "#" + row.getReplication() : row.getKey();
+                    ClassStatistics overall = result.getOverall();
+                    System.out.printf(Locale.ROOT, "%-28s %-12s %10d %10.6f %10.2f %10.2f%n", result.getWorkload(),
+                            key, overall.getLatenessHistogram().getCount(), result.getDeadlineMissRatio(),
+                            overall.getLateness().getMean(), overall.getLatenessHistogram().tardinessQuantile(0.99));
+                }
+            }
+        }
+        if (comparison != null) {
+            System.out.println();
+            System.out.print(comparison.table(comparison.compare(rows, replications)));
+        }
+        System.err.printf("%d runs on %d thread(s): %.3f s wall time, %.3f s of simulation (speedup %.2f)%n",
+                rows.size(), threads, elapsed / 1e9, simulationNanos / 1e9, (double) simulationNanos / elapsed);
+    }
+
+    private static void runSweep(QuantumSweep sweep, Workload workload, double min, double max) {
+        long start = System.nanoTime();
+        List<QuantumSweep.Point> curve = sweep.sweep(workload, min, max);
+        long elapsed = System.nanoTime() - start;
+        QuantumSweep.Point best = sweep.best(curve);
+
+        System.out.println("# " + workload.getName() + ": " + sweep.getMetric() + " as a function of the RR quantum");
+        System.out.printf("%-10s %14s %6s%n", "quantum", "value", "round");
+        for (QuantumSweep.Point point : curve) {
+            System.out.printf(Locale.ROOT, "%-10s %14.4f %6d%s%n", QuantumSweep.format(point.getQuantum()),
+                    point.getValue(), point.getRound(), point == best ? "  <- best" : "");
+        }
+        System.out.println();
+        System.out.println(SimulationResult.header());
+        System.out.println(best.getResult());
+        System.err.printf("%d quanta simulated in %.3f s%n", curve.size(), elapsed / 1e9);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: PsSim [options] [--progress T] [--log FILE] workload.run "
+                + "[algorithm [parameters...]]");
+        System.err.println("       PsSim [options] [--threads T] [--replications R] [--paired METRIC] "
+                + "experiment.exp [experiment.exp...]");
+        System.err.println("       PsSim [options] [--threads T] [--replications R] --sweep METRIC MIN MAX "
+                + "[--points N] [--rounds K] workload.run");
+        System.err.println("Options: --scale N, --cores N, --balance none|push|steal|push,steal, "
+                + "--discipline FIFO|SSTF|SCAN");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,247 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.scheduler.Algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Search of the Round Robin time slice that optimizes a metric for a workload.
+ * <p/>
+ * A first round simulates a coarse grid of quanta over the whole range. Each following round simulates a finer
+ * grid between the neighbours of the best quantum found so far. The runs of a round are executed in parallel by
+ * an {@link ExperimentRunner}, and every point simulated is kept to draw the response curve.
+ * <p/>
+ * The grid is geometric: the effect of the quantum is roughly logarithmic, 0.1 and 0.2 differ as much as 5 and 10.
+ */
+public class QuantumSweep {
+
+    /**
+     * The quantity optimized by the sweep
+     */
+    public enum Metric {
+        TURNAROUND("mean turnaround time", false),
+        WAITING("mean waiting time", false),
+        TURNAROUND_P99("99th percentile of turnaround time", false),
+        WAITING_P99("99th percentile of waiting time", false),
+        THROUGHPUT("throughput", true),
+        UTILIZATION("CPU utilization", true);
+
+        private final String description;
+        private final boolean maximized;
+
+        Metric(String description, boolean maximized) {
+            this.description = description;
+            this.maximized = maximized;
+        }
+
+        /**
+         * @param name Name of the metric, case insensitive, e.g. "waiting" or "turnaround_p99"
+         * @return The metric
+         * @throws IllegalArgumentException If the name is not known
+         */
+        public static Metric parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown metric: " + name + " (expected turnaround, waiting, "
+                        + "turnaround_p99, waiting_p99, throughput or utilization)");
+            }
+        }
+
+        /**
+         * @return The value of the metric in the result of a run
+         */
+        public double of(SimulationResult result) {
+            switch (this) {
+                case TURNAROUND:
+                    return result.getTurnaroundMean();
+                case WAITING:
+                    return result.getWaitingMean();
+                case TURNAROUND_P99:
+                    return result.getOverall().getTurnaroundQuantiles().quantile(0.99);
+                case WAITING_P99:
+                    return result.getOverall().getWaitingQuantiles().quantile(0.99);
+                case THROUGHPUT:
+                    return result.getThroughput();
+                case UTILIZATION:
+                    return result.getCpuUtilization();
+                default:
+                    throw new IllegalStateException("Unknown metric " + this);
+            }
+        }
+
+        /**
+         * @return true if a higher value is better
+         */
+        public boolean isMaximized() {
+            return maximized;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * One point of the response curve
+     */
+    public static class Point {
+        private final double quantum;
+        private final double value;
+        private final int round;
+        private final SimulationResult result;
+
+        Point(double quantum, double value, int round, SimulationResult result) {
+            this.quantum = quantum;
+            this.value = value;
+            this.round = round;
+            this.result = result;
+        }
+
+        public double getQuantum() {
+            return quantum;
+        }
+
+        /**
+         * @return The metric, averaged over the replications
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * @return The round that simulated this point, 0 for the coarse grid
+         */
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * @return The result of the first replication
+         */
+        public SimulationResult getResult() {
+            return result;
+        }
+    }
+
+    private final ExperimentRunner runner;
+    private final Metric metric;
+    private final int points;
+    private final int rounds;
+
+    /**
+     * @param runner Runs the simulations of each round, and repeats them as many times as it has replications
+     * @param metric The metric to optimize
+     * @param points Number of quanta simulated by each round
+     * @param rounds Number of rounds, including the coarse one
+     */
+    public QuantumSweep(ExperimentRunner runner, Metric metric, int points, int rounds) {
+        if (points < 3) {
+            throw new IllegalArgumentException("A sweep needs at least 3 points per round");
+        }
+        if (rounds < 1) {
+            throw new IllegalArgumentException("A sweep needs at least one round");
+        }
+        this.runner = runner;
+        this.metric = metric;
+        this.points = points;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Search the best quantum of a workload
+     *
+     * @param workload The workload to simulate
+     * @param min      Smallest quantum
+     * @param max      Largest quantum
+     * @return Every point simulated, ordered by quantum
+     */
+    public List<Point> sweep(Workload workload, double min, double max) {
+        if (!(min > 0) || !(max > min)) {
+            throw new IllegalArgumentException("The quantum range must be positive and not empty");
+        }
+        TreeMap<Double, Point> curve = new TreeMap<>();
+        double low = min;
+        double high = max;
+        for (int round = 0; round < rounds; round++) {
+            List<Double> quanta = new ArrayList<>();
+            double ratio = Math.pow(high / low, 1.0 / (points - 1));
+            for (int i = 0; i < points; i++) {
+                // Rounded as printed, so the simulated quantum is exactly the one reported
+                double quantum = Double.parseDouble(format(i == points - 1 ? high : low * Math.pow(ratio, i)));
+                if (!curve.containsKey(quantum)) {
+                    quanta.add(quantum);
+                }
+            }
+            if (quanta.isEmpty()) {
+                break;
+            }
+            simulate(workload, quanta, round, curve);
+
+            // Refine between the neighbours of the best quantum
+            double best = best(curve.values()).getQuantum();
+            Double lower = curve.lowerKey(best);
+            Double higher = curve.higherKey(best);
+            low = lower != null ? lower : best;
+            high = higher != null ? higher : best;
+            if (!(high > low)) {
+                break;
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(curve.values()));
+    }
+
+    private void simulate(Workload workload, List<Double> quanta, int round, TreeMap<Double, Point> curve) {
+        List<Experiment.Run> runs = new ArrayList<>();
+        for (double quantum : quanta) {
+            runs.add(new Experiment.Run(workload, Algorithm.parse("RR " + format(quantum)), format(quantum)));
+        }
+        Experiment experiment = new Experiment(workload.getName(), "quantum sweep, round " + round, runs);
+        List<ExperimentRunner.Row> rows = runner.run(Collections.singletonList(experiment));
+
+        // Rows come grouped by run, one per replication
+        int replications = rows.size() / quanta.size();
+        for (int q = 0; q < quanta.size(); q++) {
+            double sum = 0;
+            for (int r = 0; r < replications; r++) {
+                sum += metric.of(rows.get(q * replications + r).getResult());
+            }
+            SimulationResult first = rows.get(q * replications).getResult();
+            curve.put(quanta.get(q), new Point(quanta.get(q), sum / replications, round, first));
+        }
+    }
+
+    /**
+     * @return The point with the best value of the metric
+     */
+    public Point best(Iterable<Point> curve) {
+        Point best = null;
+        for (Point point : curve) {
+            if (best == null || (metric.isMaximized() ? point.getValue() > best.getValue()
+                    : point.getValue() < best.getValue())) {
+                best = point;
+            }
+        }
+        return best;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Format a quantum with enough digits to tell apart the points of the finest round
+     */
+    static String format(double quantum) {
+        String text = String.format(Locale.ROOT, "%.4g", quantum);
+        if (text.contains(".") && !text.contains("e")) {
+            text = text.replaceAll("0+$", "").replaceAll("\\.$", "");
+        }
+        return text;
+    }
+}
@@ -0,0 +1,103 @@
+package ch.unine.os.as2;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Reproducible stream of random numbers from which independent substreams are derived by index.
+ * <p/>
+ * The generator is SplitMix64, the algorithm of {@link java.util.SplittableRandom}: the state advances by a
+ * constant odd gamma and each output is the state scrambled by a 64-bit finalizer. Substream {@code i} gets its
+ * seed and its gamma from the seed and gamma of its parent and {@code i} only, not from the numbers drawn so far,
+ * so the stream of a process block or of a core is the same whichever streams are created or used before it, in
+ * whichever order and on whichever thread.
+ * <p/>
+ * Variates come from {@link RandomGenerator}: uniforms take one draw, exponentials a ziggurat that rarely needs
+ * a logarithm. None of them allocates. A stream is not thread-safe; each thread uses its own substreams.
+ */
+public final class RandomStream implements RandomGenerator {
+
+    /**
+     * Golden ratio gamma of SplitMix64
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private final long gamma;
+    private long state;
+
+    /**
+     * @param seed The seed of the stream, such as the seed of a .run file
+     */
+    public RandomStream(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private RandomStream(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+        this.state = seed;
+    }
+
+    /**
+     * Derive an independent stream. The same index always gives the same stream, whatever was drawn from this one.
+     *
+     * @param index The number of the substream
+     * @return A new stream, starting at its first number
+     */
+    public RandomStream substream(long index) {
+        long z = seed + (index + 1) * gamma;
+        return new RandomStream(mix64(z), mixGamma(z + GOLDEN_GAMMA));
+    }
+
+    /**
+     * Start of a lightweight substream, which shares the gamma of this stream and differs by its position only.
+     * Drawing from many short substreams, such as one per process, then allocates nothing: their positions are
+     * stored apart, and this stream is moved to the position of the one to draw from with {@link #seek}.
+     *
+     * @param index The number of the substream
+     * @return The position at which the substream starts
+     */
+    public long position(long index) {
+        return mix64(seed + (index + 1) * gamma);
+    }
+
+    /**
+     * @return The current position, from which the next number is drawn
+     */
+    public long position() {
+        return state;
+    }
+
+    /**
+     * @param position A position returned by {@link #position()} or {@link #position(long)}
+     */
+    public void seek(long position) {
+        state = position;
+    }
+
+    @Override
+    public long nextLong() {
+        state += gamma;
+        return mix64(state);
+    }
+
+    /**
+     * The 64-bit finalizer of SplitMix64 (variant 13 of Stafford's mixers)
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * An odd gamma with enough bit transitions, as chosen by {@link java.util.SplittableRandom}
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
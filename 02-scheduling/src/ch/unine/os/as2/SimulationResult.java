@@ -0,0 +1,308 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.stats.ClassStatistics;
+import ch.unine.os.as2.stats.DeviceStatistics;
+import ch.unine.os.as2.stats.LatenessHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Statistics of one simulation run, with the same metrics as the report tables:
+ * CPU utilization, throughput, and mean and standard deviation of the turnaround and waiting times.
+ * Turnaround and waiting times are also available per class of processes (block of the .run file),
+ * with quantiles.
+ * <p/>
+ * When some processes have a deadline, the deadline miss ratio and the lateness of each class are also available.
+ * <p/>
+ * On a multi-core machine, the CPU utilization is the mean over the cores, and each core is also detailed.
+ * The I/O devices of the machine, if any, are detailed too.
+ * <p/>
+ * A result may also be a snapshot taken while the simulation is still running, in which case it covers
+ * the processes completed so far.
+ */
+public class SimulationResult {
+    private final String workload;
+    private final String algorithm;
+    private final double totalTime;
+    private final double[] coreBusyTime;
+    private final long[] coreSwitches;
+    private final long[] coreMigrations;
+    private final ClassStatistics overall;
+    private final List<ClassStatistics> classes;
+    private final List<DeviceStatistics> devices;
+    private final long events;
+
+    /**
+     * @param workload        Name of the workload
+     * @param algorithm       Name of the algorithm
+     * @param totalTime       Simulated time covered by the result
+     * @param coreBusyTime    Time during which each core executed processes
+     * @param coreSwitches    Number of dispatches on each core
+     * @param coreMigrations  Number of dispatches of a process that last ran on another core, per core
+     * @param overall         Statistics of all the processes
+     * @param classes         Statistics per process block
+     * @param devices         Statistics per I/O device
+     * @param events          Number of events processed
+     */
+    public SimulationResult(String workload, String algorithm, double totalTime, double[] coreBusyTime,
+                            long[] coreSwitches, long[] coreMigrations, ClassStatistics overall,
+                            List<ClassStatistics> classes, List<DeviceStatistics> devices, long events) {
+        this.workload = workload;
+        this.algorithm = algorithm;
+        this.totalTime = totalTime;
+        this.coreBusyTime = coreBusyTime;
+        this.coreSwitches = coreSwitches;
+        this.coreMigrations = coreMigrations;
+        this.overall = overall;
+        this.classes = Collections.unmodifiableList(new ArrayList<>(classes));
+        this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+        this.events = events;
+    }
+
+    /**
+     * @return Header of the table printed by {@link #toRow(String)}
+     */
+    public static String header() {
+        return String.format(Locale.ROOT, "%-28s %-12s %10s %10s %10s %10s %10s %10s %10s",
+                "workload", "key", "processes", "CPU util.", "throughput", "turn. mean", "turn. sd", "wait mean", "wait sd");
+    }
+
+    /**
+     * @param key Label of the run, e.g. the key of an experiment line
+     * @return The statistics formatted as a table row
+     */
+    public String toRow(String key) {
+        return String.format(Locale.ROOT, "%-28s %-12s %10d %10.6f %10.6f %10.2f %10.2f %10.2f %10.2f",
+                workload, key, getCompleted(), getCpuUtilization(), getThroughput(), getTurnaroundMean(),
+                getTurnaroundStdDev(), getWaitingMean(), getWaitingStdDev());
+    }
+
+    /**
+     * @return Turnaround and waiting time distributions of each class of processes, formatted as a table
+     */
+    public String classTable() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "%-10s %10s | %10s %10s %10s %10s %10s | %10s %10s %10s %10s %10s%n",
+                "class", "processes", "turn. mean", "turn. sd", "turn. p50", "turn. p90", "turn. p99",
+                "wait mean", "wait sd", "wait p50", "wait p90", "wait p99"));
+        for (ClassStatistics statistics : classes) {
+            appendClassRow(builder, statistics);
+        }
+        appendClassRow(builder, overall);
+        return builder.toString();
+    }
+
+    private static void appendClassRow(StringBuilder builder, ClassStatistics statistics) {
+        builder.append(String.format(Locale.ROOT,
+                "%-10s %10d | %10.2f %10.2f %10.2f %10.2f %10.2f | %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                statistics.getName(), statistics.getCompleted(),
+                statistics.getTurnaround().getMean(), statistics.getTurnaround().getStandardDeviation(),
+                statistics.getTurnaroundQuantiles().quantile(0.5), statistics.getTurnaroundQuantiles().quantile(0.9),
+                statistics.getTurnaroundQuantiles().quantile(0.99),
+                statistics.getWaiting().getMean(), statistics.getWaiting().getStandardDeviation(),
+                statistics.getWaitingQuantiles().quantile(0.5), statistics.getWaitingQuantiles().quantile(0.9),
+                statistics.getWaitingQuantiles().quantile(0.99)));
+    }
+
+    /**
+     * @return true if some of the processes completed so far had a deadline
+     */
+    public boolean hasDeadlines() {
+        return overall.getLatenessHistogram().getCount() > 0;
+    }
+
+    /**
+     * @return Deadline misses and lateness of each class of processes with a deadline, formatted as a table.
+     * Tardiness quantiles are upper bounds, computed over the late processes only.
+     */
+    public String deadlineTable() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "%-10s %10s %10s %10s | %10s %10s %10s | %10s %10s %10s%n",
+                "class", "deadlines", "missed", "miss ratio", "late mean", "late sd", "late max",
+                "tard. p50", "tard. p90", "tard. p99"));
+        for (ClassStatistics statistics : classes) {
+            if (statistics.getLatenessHistogram().getCount() > 0) {
+                appendDeadlineRow(builder, statistics);
+            }
+        }
+        appendDeadlineRow(builder, overall);
+        return builder.toString();
+    }
+
+    private static void appendDeadlineRow(StringBuilder builder, ClassStatistics statistics) {
+        LatenessHistogram histogram = statistics.getLatenessHistogram();
+        builder.append(String.format(Locale.ROOT,
+                "%-10s %10d %10d %10.6f | %10.2f %10.2f %10.2f | %10.2f %10.2f %10.2f%n",
+                statistics.getName(), histogram.getCount(), histogram.getMissed(), histogram.getMissRatio(),
+                statistics.getLateness().getMean(), statistics.getLateness().getStandardDeviation(),
+                statistics.getLateness().getMax(), histogram.tardinessQuantile(0.5),
+                histogram.tardinessQuantile(0.9), histogram.tardinessQuantile(0.99)));
+    }
+
+    /**
+     * @return Fraction of the processes with a deadline that missed it
+     */
+    public double getDeadlineMissRatio() {
+        return overall.getLatenessHistogram().getMissRatio();
+    }
+
+    /**
+     * @return Utilization, dispatches and migrations of each core, formatted as a table
+     */
+    public String coreTable() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT, "%-6s %10s %12s %12s%n",
+                "core", "CPU util.", "dispatches", "migrations"));
+        for (int core = 0; core < coreBusyTime.length; core++) {
+            builder.append(String.format(Locale.ROOT, "%-6d %10.6f %12d %12d%n",
+                    core, getCoreUtilization(core), coreSwitches[core], coreMigrations[core]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return Utilization, requests, queue waiting time and seek distance of each I/O device, formatted as a table
+     */
+    public String deviceTable() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "%-10s %10s %10s | %10s %10s %10s | %10s%n",
+                "device", "util.", "requests", "wait mean", "wait sd", "wait max", "seek mean"));
+        for (DeviceStatistics statistics : devices) {
+            builder.append(String.format(Locale.ROOT, "%-10s %10.6f %10d | %10.2f %10.2f %10.2f | %10.2f%n",
+                    statistics.getName(), totalTime > 0 ? statistics.getBusyTime() / totalTime : 0,
+                    statistics.getRequests(), statistics.getWaiting().getMean(),
+                    statistics.getWaiting().getStandardDeviation(), statistics.getWaiting().getMax(),
+                    statistics.getSeekDistance().getMean()));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toRow(algorithm);
+    }
+
+    public String getWorkload() {
+        return workload;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return Number of processes that completed
+     */
+    public long getCompleted() {
+        return overall.getCompleted();
+    }
+
+    /**
+     * @return Simulated time at which the last process completed (or at which the snapshot was taken)
+     */
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * @return Time during which the cores executed processes (context switches excluded), summed over the cores
+     */
+    public double getBusyTime() {
+        double busyTime = 0;
+        for (double time : coreBusyTime) {
+            busyTime += time;
+        }
+        return busyTime;
+    }
+
+    public long getContextSwitches() {
+        long switches = 0;
+        for (long count : coreSwitches) {
+            switches += count;
+        }
+        return switches;
+    }
+
+    /**
+     * @return Number of times a process was dispatched on another core than the last one
+     */
+    public long getMigrations() {
+        long migrations = 0;
+        for (long count : coreMigrations) {
+            migrations += count;
+        }
+        return migrations;
+    }
+
+    public int getCores() {
+        return coreBusyTime.length;
+    }
+
+    /**
+     * @return Mean utilization of the cores
+     */
+    public double getCpuUtilization() {
+        return totalTime == 0 ? 0 : getBusyTime() / (totalTime * coreBusyTime.length);
+    }
+
+    /**
+     * @param core A core number
+     * @return Utilization of this core
+     */
+    public double getCoreUtilization(int core) {
+        return totalTime == 0 ? 0 : coreBusyTime[core] / totalTime;
+    }
+
+    /**
+     * @return Completed processes per unit of time
+     */
+    public double getThroughput() {
+        return totalTime == 0 ? 0 : getCompleted() / totalTime;
+    }
+
+    public double getTurnaroundMean() {
+        return overall.getTurnaround().getMean();
+    }
+
+    public double getTurnaroundStdDev() {
+        return overall.getTurnaround().getStandardDeviation();
+    }
+
+    public double getWaitingMean() {
+        return overall.getWaiting().getMean();
+    }
+
+    public double getWaitingStdDev() {
+        return overall.getWaiting().getStandardDeviation();
+    }
+
+    /**
+     * @return Statistics of all the processes
+     */
+    public ClassStatistics getOverall() {
+        return overall;
+    }
+
+    /**
+     * @return Statistics of each process block, in the order of the .run file
+     */
+    public List<ClassStatistics> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return Number of events processed by the simulator
+     */
+    /**
+     * @return Statistics of each I/O device, empty if the machine has none
+     */
+    public List<DeviceStatistics> getDevices() {
+        return devices;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,681 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.device.Device;
+import ch.unine.os.as2.device.RequestQueue;
+import ch.unine.os.as2.scheduler.Algorithm;
+import ch.unine.os.as2.scheduler.Scheduler;
+import ch.unine.os.as2.stats.ClassStatistics;
+import ch.unine.os.as2.stats.DeviceStatistics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Discrete-event simulator of a machine running a workload with a given scheduling algorithm.
+ * <p/>
+ * Each process alternates CPU bursts and I/O bursts until it has used its whole duration of CPU time.
+ * I/O bursts are pure delays, unless the block of the process sends them to one of the {@link Device}s of the
+ * machine: the process then waits in the queue of the device until the device has served the requests chosen
+ * before its own, and I/O-bound processes compete for the device as they compete for the CPU.
+ * Dispatching a process costs cstin, and removing it from the CPU costs cstout; neither counts as useful work.
+ * <p/>
+ * The machine has one or more cores, each with its own ready queue, balanced as described by {@link Machine}.
+ * <p/>
+ * Processes are created lazily when they arrive and forgotten when they complete, so memory use depends on the
+ * number of processes alive at the same time and not on the size of the workload. They live in a
+ * {@link ProcessTable}, without an object per process.
+ * <p/>
+ * Two sources of arrivals are merged: the process blocks, whose bursts are drawn from their distributions, and
+ * the trace of the workload, if any, read one process ahead of the simulation clock. Traced processes form the
+ * last class of the statistics.
+ * <p/>
+ * Each block draws its inter-arrival times, durations and deadlines from {@link RandomStream}s of its own,
+ * derived from the seed, and each process draws its bursts from a substream of its block, indexed by its rank of
+ * arrival. The schedulers that draw get one stream per core. The n-th process of a block therefore arrives at
+ * the same time with the same duration, deadline and bursts whatever the algorithm, the other blocks or the
+ * order in which events happen: runs with the same seed simulate the same realization of the workload, and
+ * their differences come from the algorithms alone (common random numbers).
+ */
+public class Simulator {
+
+    /*
+     * Event types
+     */
+    private static final int ARRIVAL = 0;
+    private static final int IO_DONE = 1;
+    private static final int SLICE_END = 2;
+    private static final int CPU_FREE = 3;
+    private static final int BALANCE = 4;
+    private static final int TRACE_ARRIVAL = 5;
+    private static final int DEVICE_DONE = 6;
+
+    /*
+     * Random streams of each block
+     */
+    private static final int INTER_ARRIVALS = 0;
+    private static final int DURATIONS = 1;
+    private static final int DEADLINES = 2;
+    private static final int BURSTS = 3;
+    private static final int STREAMS = 4;
+
+    /*
+     * Substreams of the seed: one per block for the workload, one per core for the schedulers
+     */
+    private static final int WORKLOAD_STREAMS = 0;
+    private static final int SCHEDULER_STREAMS = 1;
+
+    /**
+     * Bursts shorter than this are considered completed, to absorb rounding errors
+     */
+    private static final double EPSILON = 1e-9;
+
+    private final Workload workload;
+    private final Algorithm algorithm;
+    private final Machine machine;
+    /**
+     * Random streams of the blocks, STREAMS per block
+     */
+    private final RandomStream[] streams;
+    private final EventQueue events;
+    private final List<ProcessBlock> blocks;
+    /**
+     * Processes not yet arrived, per block
+     */
+    private final int[] toArrive;
+    private long pendingArrivals;
+    /**
+     * Reader of the trace, positioned on the next traced process to arrive, null once the trace is exhausted
+     */
+    private TraceReader trace;
+    private final ProcessTable processes;
+
+    private double now;
+    private long readySequence;
+
+    /*
+     * State of each core
+     */
+    private final Scheduler[] queues;
+    private final boolean[] busy;
+    /**
+     * Process running on each core, or ProcessTable.NONE
+     */
+    private final int[] running;
+    private final double[] runningSlice;
+
+    /*
+     * State of each device
+     */
+    private final List<Device> devices;
+    /**
+     * Device serving the I/O bursts of each block, -1 for pure delays
+     */
+    private final int[] blockDevices;
+    private final RequestQueue[] deviceQueues;
+    private final int[] deviceHeads;
+    /**
+     * Process whose request each device is serving, or ProcessTable.NONE
+     */
+    private final int[] serving;
+    private final DeviceStatistics[] deviceStatistics;
+
+    /*
+     * Statistics, accumulated as processes complete, in constant memory
+     */
+    private final ClassStatistics overall;
+    private final ClassStatistics[] classes;
+    private double lastCompletion;
+    private final double[] coreBusyTime;
+    private final long[] coreSwitches;
+    private final long[] coreMigrations;
+    private long eventCount;
+
+    /*
+     * Periodic snapshots of the statistics
+     */
+    private ProgressListener progressListener;
+    private double progressInterval;
+    private double nextProgress;
+
+    /**
+     * Log of the scheduling events, or null
+     */
+    private EventLog.Writer log;
+
+    /**
+     * @param workload  The workload to simulate, with its own random seed
+     * @param algorithm The scheduling algorithm
+     */
+    public Simulator(Workload workload, Algorithm algorithm) {
+        this(workload, algorithm, workload.getSeed());
+    }
+
+    /**
+     * @param workload  The workload to simulate
+     * @param algorithm The scheduling algorithm
+     * @param seed      Seed of the random numbers drawn for the workload
+     */
+    public Simulator(Workload workload, Algorithm algorithm, long seed) {
+        this(workload, algorithm, seed, EventQueue.Implementation.fromSystemProperty().create());
+    }
+
+    /**
+     * @param workload  The workload to simulate
+     * @param algorithm The scheduling algorithm
+     * @param seed      Seed of the random numbers drawn for the workload
+     * @param events    The empty future event list
+     */
+    public Simulator(Workload workload, Algorithm algorithm, long seed, EventQueue events) {
+        this(workload, algorithm, seed, events, null);
+    }
+
+    /**
+     * @param workload    The workload to simulate
+     * @param algorithm   The scheduling algorithm
+     * @param seed        Seed of the random numbers drawn for the workload
+     * @param events      The empty future event list
+     * @param readyQueues Wraps the ready queue of each core, given the process table, e.g. to record its
+     *                    operations; null to use the queues of the algorithm as they are
+     */
+    public Simulator(Workload workload, Algorithm algorithm, long seed, EventQueue events,
+                     BiFunction<Scheduler, ProcessTable, Scheduler> readyQueues) {
+        this.workload = workload;
+        this.algorithm = algorithm;
+        this.machine = workload.getMachine();
+        this.events = events;
+        this.blocks = workload.getBlocks();
+        RandomStream root = new RandomStream(seed);
+        this.streams = newStreams(root.substream(WORKLOAD_STREAMS), blocks.size());
+        this.toArrive = new int[blocks.size()];
+        this.processes = newProcessTable(workload);
+
+        int cores = machine.getCores();
+        this.queues = algorithm.newSchedulers(workload, processes, cores, root.substream(SCHEDULER_STREAMS));
+        if (readyQueues != null) {
+            for (int core = 0; core < cores; core++) {
+                queues[core] = readyQueues.apply(queues[core], processes);
+            }
+        }
+        this.busy = new boolean[cores];
+        this.running = new int[cores];
+        Arrays.fill(running, ProcessTable.NONE);
+        this.runningSlice = new double[cores];
+        this.coreBusyTime = new double[cores];
+        this.coreSwitches = new long[cores];
+        this.coreMigrations = new long[cores];
+
+        this.devices = machine.getDevices();
+        this.blockDevices = new int[blocks.size()];
+        for (int b = 0; b < blocks.size(); b++) {
+            String device = blocks.get(b).getDevice();
+            blockDevices[b] = device != null ? machine.indexOfDevice(device) : -1;
+        }
+        this.deviceQueues = new RequestQueue[devices.size()];
+        this.deviceHeads = new int[devices.size()];
+        this.serving = new int[devices.size()];
+        Arrays.fill(serving, ProcessTable.NONE);
+        this.deviceStatistics = new DeviceStatistics[devices.size()];
+        for (int d = 0; d < devices.size(); d++) {
+            deviceQueues[d] = devices.get(d).newQueue();
+            deviceStatistics[d] = new DeviceStatistics(devices.get(d).getName());
+        }
+
+        this.overall = new ClassStatistics("all");
+        this.classes = new ClassStatistics[blocks.size() + (workload.getTrace() != null ? 1 : 0)];
+        for (int b = 0; b < blocks.size(); b++) {
+            classes[b] = new ClassStatistics("block " + b);
+        }
+        if (workload.getTrace() != null) {
+            classes[blocks.size()] = new ClassStatistics("trace");
+        }
+    }
+
+    private static RandomStream[] newStreams(RandomStream workload, int blocks) {
+        RandomStream[] streams = new RandomStream[blocks * STREAMS];
+        for (int b = 0; b < blocks; b++) {
+            RandomStream block = workload.substream(b);
+            for (int kind = 0; kind < STREAMS; kind++) {
+                streams[b * STREAMS + kind] = block.substream(kind);
+            }
+        }
+        return streams;
+    }
+
+    private RandomStream stream(int block, int kind) {
+        return streams[block * STREAMS + kind];
+    }
+
+    /**
+     * @return A process table for the classes of the workload: its blocks, then the trace
+     */
+    private static ProcessTable newProcessTable(Workload workload) {
+        List<ProcessBlock> blocks = workload.getBlocks();
+        int[] priorities = new int[blocks.size() + 1];
+        boolean deadlines = false;
+        for (int b = 0; b < blocks.size(); b++) {
+            priorities[b] = blocks.get(b).getBasePriority();
+            deadlines |= blocks.get(b).getDeadline() != null;
+        }
+        // Traced processes have the default priority
+        priorities[blocks.size()] = 1;
+        return new ProcessTable(priorities, deadlines, workload.getTrace() != null,
+                !workload.getMachine().getDevices().isEmpty());
+    }
+
+    /**
+     * Receive snapshots of the statistics during the run
+     *
+     * @param listener The listener, called from the thread running the simulation
+     * @param interval Simulated time between two snapshots
+     */
+    public void setProgressListener(ProgressListener listener, double interval) {
+        if (!(interval > 0)) {
+            throw new IllegalArgumentException("The progress interval must be positive");
+        }
+        this.progressListener = listener;
+        this.progressInterval = interval;
+        this.nextProgress = interval;
+    }
+
+    /**
+     * Record the dispatches, preemptions, I/O bursts, arrivals and completions of the run. Without a log, the
+     * simulation only pays a null check per event.
+     *
+     * @param log The log, left open at the end of the run
+     */
+    public void setEventLog(EventLog.Writer log) {
+        this.log = log;
+    }
+
+    /**
+     * Run the simulation until every process has completed
+     *
+     * @return The statistics of the run
+     * @throws UncheckedIOException If the trace cannot be read
+     */
+    public SimulationResult run() {
+        try {
+            if (workload.getTrace() != null) {
+                trace = new TraceReader(workload.getTrace());
+                nextTracedArrival();
+            }
+            return simulate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeTrace();
+        }
+    }
+
+    private SimulationResult simulate() throws IOException {
+        for (int b = 0; b < blocks.size(); b++) {
+            toArrive[b] = blocks.get(b).getNumProcs();
+            pendingArrivals += toArrive[b];
+            if (toArrive[b] > 0) {
+                events.add(blocks.get(b).getFirstArrival(), ARRIVAL, b);
+            }
+        }
+        if (machine.isPushMigration() && machine.getCores() > 1) {
+            events.add(machine.getBalanceInterval(), BALANCE, 0);
+        }
+
+        while (!events.isEmpty()) {
+            now = events.peekTime();
+            int type = events.peekType();
+            int payload = events.peekPayload();
+            events.remove();
+            eventCount++;
+
+            switch (type) {
+                case ARRIVAL:
+                    arrival(payload);
+                    break;
+                case TRACE_ARRIVAL:
+                    tracedArrival();
+                    break;
+                case IO_DONE:
+                    if (log != null) {
+                        log.write(EventLog.IO_DONE, now, payload, 0);
+                    }
+                    makeReady(payload);
+                    break;
+                case DEVICE_DONE:
+                    deviceDone(payload);
+                    break;
+                case SLICE_END:
+                    sliceEnd(payload);
+                    break;
+                case CPU_FREE:
+                    busy[payload] = false;
+                    break;
+                case BALANCE:
+                    pushMigration();
+                    if (processes.size() > 0 || pendingArrivals > 0 || trace != null) {
+                        events.add(now + machine.getBalanceInterval(), BALANCE, 0);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type " + type);
+            }
+            for (int core = 0; core < queues.length; core++) {
+                dispatch(core);
+            }
+
+            if (progressListener != null && now >= nextProgress) {
+                progressListener.progress(snapshot(now, true));
+                nextProgress = (Math.floor(now / progressInterval) + 1) * progressInterval;
+            }
+        }
+
+        return snapshot(lastCompletion, false);
+    }
+
+    /**
+     * @param time Simulated time covered by the result
+     * @param copy true to copy the statistics, which are still being updated
+     */
+    private SimulationResult snapshot(double time, boolean copy) {
+        List<ClassStatistics> classList = new ArrayList<>(classes.length);
+        for (ClassStatistics statistics : classes) {
+            classList.add(copy ? statistics.copy() : statistics);
+        }
+        List<DeviceStatistics> deviceList = new ArrayList<>(deviceStatistics.length);
+        for (DeviceStatistics statistics : deviceStatistics) {
+            deviceList.add(copy ? statistics.copy() : statistics);
+        }
+        return new SimulationResult(workload.getName(), algorithm.toString(), time, coreBusyTime.clone(),
+                coreSwitches.clone(), coreMigrations.clone(), copy ? overall.copy() : overall, classList, deviceList,
+                eventCount);
+    }
+
+    /**
+     * A new process of the given block arrives; schedule the arrival of the next one
+     */
+    private void arrival(int b) {
+        ProcessBlock block = blocks.get(b);
+        double duration = block.getDuration().sample(stream(b, DURATIONS));
+        double deadline = block.getDeadline() != null
+                ? now + block.getDeadline().sample(stream(b, DEADLINES)) : Double.POSITIVE_INFINITY;
+        int pid = processes.create(b, now, duration, deadline);
+        pendingArrivals--;
+        RandomStream bursts = stream(b, BURSTS);
+        bursts.seek(bursts.position(block.getNumProcs() - toArrive[b]));
+        processes.startBurst(pid, block.getCpuBurst().sample(bursts));
+        processes.setRandomPosition(pid, bursts.position());
+        if (log != null) {
+            log.write(EventLog.ARRIVAL, now, pid, b);
+        }
+        makeReady(pid);
+
+        if (--toArrive[b] > 0) {
+            events.add(now + block.getInterArrival().sample(stream(b, INTER_ARRIVALS)), ARRIVAL, b);
+        }
+    }
+
+    /**
+     * The current process of the trace arrives; schedule the arrival of the next one
+     */
+    private void tracedArrival() throws IOException {
+        int pid = processes.createTraced(blocks.size(), now, trace.copyBursts());
+        processes.startBurst(pid, processes.nextRecordedBurst(pid));
+        if (log != null) {
+            log.write(EventLog.ARRIVAL, now, pid, blocks.size());
+        }
+        makeReady(pid);
+        nextTracedArrival();
+    }
+
+    private void nextTracedArrival() throws IOException {
+        if (trace.next()) {
+            // The trace may start before the clock of the simulation
+            events.add(Math.max(now, trace.getArrival()), TRACE_ARRIVAL, 0);
+        } else {
+            closeTrace();
+        }
+    }
+
+    private void closeTrace() {
+        if (trace != null) {
+            try {
+                trace.close();
+            } catch (IOException e) {
+                // Read only, nothing was lost
+            }
+            trace = null;
+        }
+    }
+
+    /**
+     * Put a process in the ready queue of the core it last ran on, or of the least loaded core for a new process
+     */
+    private void makeReady(int pid) {
+        int core = processes.getCore(pid);
+        if (core < 0) {
+            core = leastLoadedCore();
+        }
+        processes.enterReadyQueue(pid, now, readySequence++);
+        queues[core].add(pid, now);
+    }
+
+    /**
+     * @return Number of processes ready or running on a core
+     */
+    private int load(int core) {
+        return queues[core].size() + (running[core] != ProcessTable.NONE ? 1 : 0);
+    }
+
+    private int leastLoadedCore() {
+        int best = 0;
+        for (int core = 1; core < queues.length; core++) {
+            if (load(core) < load(best)) {
+                best = core;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The core running a process with the longest ready queue, other than thief, or -1 if every other core
+     * is idle, switching, or has nothing ready besides its running process
+     */
+    private int stealVictim(int thief) {
+        int best = -1;
+        for (int core = 0; core < queues.length; core++) {
+            // A core switching a process out is about to run its own queue: it has no work to spare
+            if (core != thief && running[core] != ProcessTable.NONE && !queues[core].isEmpty()
+                    && (best < 0 || queues[core].size() > queues[best].size())) {
+                best = core;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Give a core to the next process of its ready queue, if the core is free.
+     * With work stealing, an idle core with an empty queue first pulls a process from the longest queue of a core
+     * that is running another process.
+     */
+    private void dispatch(int core) {
+        if (busy[core]) {
+            return;
+        }
+        Scheduler queue = queues[core];
+        if (queue.isEmpty() && machine.isWorkStealing()) {
+            int victim = stealVictim(core);
+            if (victim >= 0) {
+                migrate(victim, core);
+            }
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        int pid = queue.poll(now);
+        processes.leaveReadyQueue(pid, now);
+        if (log != null) {
+            log.write(EventLog.DISPATCH, now, pid, core);
+        }
+        double switchIn = workload.getContextSwitchIn();
+        int last = processes.getCore(pid);
+        if (last >= 0 && last != core) {
+            switchIn += machine.getMigrationCost();
+            coreMigrations[core]++;
+        }
+        processes.setCore(pid, core);
+        busy[core] = true;
+        running[core] = pid;
+        runningSlice[core] = Math.min(processes.getBurstRemaining(pid), queue.timeSlice(pid));
+        coreSwitches[core]++;
+        events.add(now + switchIn + runningSlice[core], SLICE_END, core);
+    }
+
+    /**
+     * Move one ready process from a queue to another
+     */
+    private void migrate(int from, int to) {
+        int pid = queues[from].steal(now);
+        if (pid != ProcessTable.NONE) {
+            // Still ready: the waiting time keeps running from when it entered the first queue
+            queues[to].add(pid, now);
+        }
+    }
+
+    /**
+     * Periodic balancing: move processes from the most loaded cores to the least loaded ones
+     * until their loads differ by at most one
+     */
+    private void pushMigration() {
+        // Each move reduces the imbalance, the bound only protects against schedulers that refuse to give processes
+        for (int moves = 0; moves < processes.size(); moves++) {
+            int busiest = 0;
+            int idlest = 0;
+            for (int core = 1; core < queues.length; core++) {
+                if (load(core) > load(busiest)) {
+                    busiest = core;
+                }
+                if (load(core) < load(idlest)) {
+                    idlest = core;
+                }
+            }
+            if (load(busiest) - load(idlest) <= 1 || queues[busiest].isEmpty()) {
+                return;
+            }
+            migrate(busiest, idlest);
+        }
+    }
+
+    /**
+     * A device starts serving the request of a process: the head moves to its cylinder, then the data is transferred
+     */
+    private void serve(int device, int pid) {
+        int cylinder = processes.getCylinder(pid);
+        int distance = Math.abs(cylinder - deviceHeads[device]);
+        double service = distance * devices.get(device).getSeekTime() + processes.getTransferTime(pid);
+        deviceHeads[device] = cylinder;
+        serving[device] = pid;
+        deviceStatistics[device].record(now - processes.getRequestTime(pid), distance, service);
+        if (log != null) {
+            log.write(EventLog.SERVICE, now, pid, device);
+        }
+        events.add(now + service, DEVICE_DONE, device);
+    }
+
+    /**
+     * A device completes a request; the process becomes ready and the device serves the next request, if any
+     */
+    private void deviceDone(int device) {
+        int pid = serving[device];
+        serving[device] = ProcessTable.NONE;
+        if (log != null) {
+            log.write(EventLog.IO_DONE, now, pid, 0);
+        }
+        makeReady(pid);
+        int next = deviceQueues[device].poll(deviceHeads[device]);
+        if (next != ProcessTable.NONE) {
+            serve(device, next);
+        }
+    }
+
+    /**
+     * The process running on a core reaches the end of its burst or of its time slice
+     */
+    private void sliceEnd(int core) {
+        int pid = running[core];
+        running[core] = ProcessTable.NONE;
+        double slice = runningSlice[core];
+        processes.run(pid, slice);
+        coreBusyTime[core] += slice;
+        Scheduler queue = queues[core];
+        queue.descheduled(pid, slice);
+
+        if (processes.getBurstRemaining(pid) > EPSILON) {
+            // Preempted
+            if (log != null) {
+                log.write(EventLog.PREEMPT, now, pid, core);
+            }
+            makeReady(pid);
+        } else {
+            queue.burstCompleted(pid);
+            if (processes.getCpuRemaining(pid) > EPSILON && processes.isTraced(pid)) {
+                double io = processes.nextRecordedBurst(pid);
+                processes.startBurst(pid, processes.nextRecordedBurst(pid));
+                processes.setState(pid, ProcessTable.BLOCKED);
+                if (log != null) {
+                    log.write(EventLog.IO_START, now, pid, 0);
+                }
+                events.add(now + io, IO_DONE, pid);
+            } else if (processes.getCpuRemaining(pid) > EPSILON) {
+                int b = processes.getBlock(pid);
+                ProcessBlock block = blocks.get(b);
+                RandomStream bursts = stream(b, BURSTS);
+                bursts.seek(processes.getRandomPosition(pid));
+                double io = block.getIoBurst().sample(bursts);
+                int device = blockDevices[b];
+                int cylinder = device >= 0 ? bursts.nextInt(devices.get(device).getCylinders()) : 0;
+                processes.startBurst(pid, block.getCpuBurst().sample(bursts));
+                processes.setRandomPosition(pid, bursts.position());
+                processes.setState(pid, ProcessTable.BLOCKED);
+                if (log != null) {
+                    log.write(EventLog.IO_START, now, pid, device + 1);
+                }
+                if (device >= 0) {
+                    processes.requestIo(pid, cylinder, io, now);
+                    if (serving[device] == ProcessTable.NONE) {
+                        serve(device, pid);
+                    } else {
+                        deviceQueues[device].add(pid, cylinder);
+                    }
+                } else {
+                    events.add(now + io, IO_DONE, pid);
+                }
+            } else {
+                complete(pid);
+            }
+        }
+
+        // The core stays busy while switching the process out
+        events.add(now + workload.getContextSwitchOut(), CPU_FREE, core);
+    }
+
+    private void complete(int pid) {
+        lastCompletion = now;
+        if (log != null) {
+            log.write(EventLog.COMPLETE, now, pid, 0);
+        }
+
+        double turnaround = now - processes.getArrivalTime(pid);
+        double waiting = processes.getWaitingTime(pid);
+        int block = processes.getBlock(pid);
+        overall.record(turnaround, waiting);
+        classes[block].record(turnaround, waiting);
+        if (processes.hasDeadline(pid)) {
+            double lateness = now - processes.getDeadline(pid);
+            overall.recordLateness(lateness);
+            classes[block].recordLateness(lateness);
+        }
+        processes.free(pid);
+    }
+}
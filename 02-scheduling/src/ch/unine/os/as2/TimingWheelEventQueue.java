@@ -0,0 +1,227 @@
+package ch.unine.os.as2;
+
+import java.util.Arrays;
+
+/**
+ * Event queue organized as a bucketed timing wheel: a ring of slots of fixed width (ticks) covering a horizon
+ * from the current tick, each slot holding the events of its tick in a sorted list. Events beyond the horizon
+ * wait in a binary heap.
+ * <p/>
+ * Unlike the {@link CalendarEventQueue}, the width never changes, so nothing is ever rebuilt: adding an event
+ * within the horizon is O(1) plus the length of its slot, and finding the earliest event walks the ticks forward
+ * from the last one removed.
+ */
+public class TimingWheelEventQueue implements EventQueue {
+    private static final int NONE = -1;
+
+    /**
+     * Default width of a tick, in the time unit of the workloads
+     */
+    public static final double DEFAULT_TICK = 0.25;
+    public static final int DEFAULT_SLOTS = 4096;
+
+    private double[] times;
+    private long[] sequences;
+    private int[] types;
+    private int[] payloads;
+    private int[] next;
+    private int free = NONE;
+    private int used;
+
+    private final double tick;
+    private final int[] slots;
+    /**
+     * Last node of each slot, and last node inserted in each slot, where the search for the place of an event
+     * starts when possible: events added in order or at the same time are then linked in O(1)
+     */
+    private final int[] tails;
+    private final int[] fingers;
+    private final int mask;
+    /**
+     * Events of the wheel are in [currentTick, currentTick + slots)
+     */
+    private long currentTick;
+    private int wheelSize;
+    private final BinaryHeapEventQueue overflow = new BinaryHeapEventQueue();
+    private long nextSequence;
+
+    /**
+     * Earliest event, when located: a node of the wheel, or the top of the overflow heap
+     */
+    private boolean located;
+    private int first = NONE;
+
+    public TimingWheelEventQueue() {
+        this(DEFAULT_TICK, DEFAULT_SLOTS);
+    }
+
+    /**
+     * @param tick      Width of a slot
+     * @param slotCount Number of slots, a power of two
+     */
+    public TimingWheelEventQueue(double tick, int slotCount) {
+        if (!(tick > 0)) {
+            throw new IllegalArgumentException("The tick must be positive");
+        }
+        if (slotCount < 1 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("The number of slots must be a power of two");
+        }
+        this.tick = tick;
+        this.slots = new int[slotCount];
+        Arrays.fill(slots, NONE);
+        this.tails = new int[slotCount];
+        this.fingers = new int[slotCount];
+        Arrays.fill(fingers, NONE);
+        this.mask = slotCount - 1;
+        int capacity = 64;
+        times = new double[capacity];
+        sequences = new long[capacity];
+        types = new int[capacity];
+        payloads = new int[capacity];
+        next = new int[capacity];
+    }
+
+    @Override
+    public void add(double time, int type, int payload) {
+        long sequence = nextSequence++;
+        long tickNumber = tickOf(time);
+        located = false;
+        if (tickNumber < currentTick || tickNumber - currentTick >= slots.length) {
+            overflow.add(time, sequence, type, payload);
+            return;
+        }
+        int node;
+        if (free != NONE) {
+            node = free;
+            free = next[node];
+        } else {
+            if (used == times.length) {
+                grow();
+            }
+            node = used++;
+        }
+        times[node] = time;
+        sequences[node] = sequence;
+        types[node] = type;
+        payloads[node] = payload;
+
+        wheelSize++;
+        int slot = (int) (tickNumber & mask);
+        int tail = tails[slot];
+        if (slots[slot] == NONE || times[tail] <= time) {
+            next[node] = NONE;
+            if (slots[slot] == NONE) {
+                slots[slot] = node;
+            } else {
+                next[tail] = node;
+            }
+            tails[slot] = node;
+            fingers[slot] = node;
+            return;
+        }
+        int finger = fingers[slot];
+        int previous = finger != NONE && times[finger] <= time ? finger : NONE;
+        int current = previous == NONE ? slots[slot] : next[previous];
+        while (times[current] <= time) {
+            previous = current;
+            current = next[current];
+        }
+        next[node] = current;
+        if (previous == NONE) {
+            slots[slot] = node;
+        } else {
+            next[previous] = node;
+        }
+        fingers[slot] = node;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return wheelSize + overflow.size();
+    }
+
+    @Override
+    public double peekTime() {
+        locate();
+        return first != NONE ? times[first] : overflow.peekTime();
+    }
+
+    @Override
+    public int peekType() {
+        locate();
+        return first != NONE ? types[first] : overflow.peekType();
+    }
+
+    @Override
+    public int peekPayload() {
+        locate();
+        return first != NONE ? payloads[first] : overflow.peekPayload();
+    }
+
+    @Override
+    public void remove() {
+        locate();
+        if (first != NONE) {
+            int slot = (int) (currentTick & mask);
+            slots[slot] = next[first];
+            if (next[first] == NONE) {
+                tails[slot] = NONE;
+            }
+            if (fingers[slot] == first) {
+                fingers[slot] = NONE;
+            }
+            next[first] = free;
+            free = first;
+            wheelSize--;
+        } else {
+            overflow.remove();
+        }
+        located = false;
+    }
+
+    private long tickOf(double time) {
+        return (long) Math.floor(time / tick);
+    }
+
+    /**
+     * Find the earliest event: the head of the first non-empty slot, or the top of the overflow heap if earlier
+     */
+    private void locate() {
+        if (located) {
+            return;
+        }
+        if (isEmpty()) {
+            throw new IllegalStateException("No event");
+        }
+        int head = NONE;
+        long headTick = currentTick;
+        if (wheelSize > 0) {
+            while (slots[(int) (headTick & mask)] == NONE) {
+                headTick++;
+            }
+            head = slots[(int) (headTick & mask)];
+        }
+        if (!overflow.isEmpty() && (head == NONE || overflow.peekTime() < times[head]
+                || (overflow.peekTime() == times[head] && overflow.peekSequence() < sequences[head]))) {
+            head = NONE;
+            headTick = Math.max(currentTick, Math.min(headTick, tickOf(overflow.peekTime())));
+        }
+        currentTick = headTick;
+        first = head;
+        located = true;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        types = Arrays.copyOf(types, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+}
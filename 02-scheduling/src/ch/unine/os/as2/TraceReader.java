@@ -0,0 +1,271 @@
+package ch.unine.os.as2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sequential reader of a process trace: one process per line, in order of arrival.
+ * <p/>
+ * A line holds the arrival time of the process followed by its bursts, alternately CPU and I/O, starting and
+ * usually ending with a CPU burst: {@code arrival cpu [io cpu]...}. Numbers are separated by spaces or tabs,
+ * {@code #} starts a comment, and blank lines are ignored.
+ * <p/>
+ * The file is memory-mapped in windows of {@link #WINDOW} bytes, and numbers are parsed directly from the mapped
+ * bytes into a reusable array. Reading a trace therefore allocates nothing per line, and the heap holds only the
+ * current line whatever the size of the file.
+ */
+public class TraceReader implements Closeable {
+
+    /**
+     * Size of the mapped window, a line must fit in it
+     */
+    static final int WINDOW = 64 << 20;
+
+    /**
+     * Powers of 10 that are exact doubles
+     */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    /**
+     * Offset in the file of the first byte of the window
+     */
+    private long windowStart;
+    private long lineNumber;
+
+    private double arrival;
+    private double[] bursts = new double[16];
+    private int burstCount;
+
+    /**
+     * @param file The trace to read
+     * @throws IOException If the file cannot be opened
+     */
+    public TraceReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        map(0);
+    }
+
+    /**
+     * Read the next process of the trace
+     *
+     * @return false at the end of the trace
+     * @throws IOException              If the file cannot be read
+     * @throws IllegalArgumentException If the line is not valid or the arrival times are not sorted
+     */
+    public boolean next() throws IOException {
+        double previousArrival = lineNumber == 0 ? Double.NEGATIVE_INFINITY : arrival;
+        while (true) {
+            if (!window.hasRemaining()) {
+                if (windowStart + window.limit() >= fileSize) {
+                    return false;
+                }
+                map(windowStart + window.limit());
+            }
+            int start = window.position();
+            int end = lineEnd(start);
+            if (end < 0) {
+                // The line continues after the window: map again from its start
+                if (start == 0) {
+                    throw new IllegalArgumentException(file + ":" + (lineNumber + 1) + ": line longer than "
+                            + WINDOW + " bytes");
+                }
+                map(windowStart + start);
+                continue;
+            }
+            lineNumber++;
+            window.position(Math.min(end + 1, window.limit()));
+            if (parseLine(start, end)) {
+                if (arrival < previousArrival) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": arrival times must not decrease");
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return Arrival time of the current process
+     */
+    public double getArrival() {
+        return arrival;
+    }
+
+    /**
+     * @return Number of bursts of the current process, CPU bursts at even indexes and I/O bursts at odd ones
+     */
+    public int getBurstCount() {
+        return burstCount;
+    }
+
+    /**
+     * @return A copy of the bursts of the current process
+     */
+    public double[] copyBursts() {
+        return Arrays.copyOf(bursts, burstCount);
+    }
+
+    /**
+     * @return Number of the line of the current process in the file
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, fileSize - position));
+    }
+
+    /**
+     * @return Index of the end of the line starting at start (newline or end of file), or -1 if it is not mapped
+     */
+    private int lineEnd(int start) {
+        int limit = window.limit();
+        for (int i = start; i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return windowStart + limit >= fileSize ? limit : -1;
+    }
+
+    /**
+     * Parse the numbers of a line of the window
+     *
+     * @return false if the line holds no process
+     */
+    private boolean parseLine(int start, int end) {
+        int count = 0;
+        int i = start;
+        while (true) {
+            while (i < end && isBlank(window.get(i))) {
+                i++;
+            }
+            if (i == end || window.get(i) == '#') {
+                break;
+            }
+            int tokenEnd = i;
+            while (tokenEnd < end && !isBlank(window.get(tokenEnd)) && window.get(tokenEnd) != '#') {
+                tokenEnd++;
+            }
+            double value = parseNumber(i, tokenEnd);
+            if (count == 0) {
+                arrival = value;
+            } else {
+                if (count - 1 == bursts.length) {
+                    bursts = Arrays.copyOf(bursts, bursts.length * 2);
+                }
+                bursts[count - 1] = value;
+            }
+            count++;
+            i = tokenEnd;
+        }
+        if (count == 0) {
+            return false;
+        }
+        if (count == 1) {
+            throw new IllegalArgumentException(file + ":" + lineNumber + ": a process needs at least one CPU burst");
+        }
+        burstCount = count - 1;
+        return true;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Parse a non-negative decimal number, with an optional fraction and exponent, from bytes [from, to)
+     */
+    private double parseNumber(int from, int to) {
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean valid = false;
+        int i = from;
+        for (; i < to && isDigit(window.get(i)); i++) {
+            valid = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (window.get(i) - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+        }
+        if (i < to && window.get(i) == '.') {
+            for (i++; i < to && isDigit(window.get(i)); i++) {
+                valid = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (window.get(i) - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                }
+            }
+        }
+        if (valid && i < to && (window.get(i) == 'e' || window.get(i) == 'E')) {
+            i++;
+            boolean negative = i < to && window.get(i) == '-';
+            if (i < to && (window.get(i) == '-' || window.get(i) == '+')) {
+                i++;
+            }
+            int value = 0;
+            boolean exponentDigits = false;
+            for (; i < to && isDigit(window.get(i)) && value < 10000; i++) {
+                value = value * 10 + (window.get(i) - '0');
+                exponentDigits = true;
+            }
+            valid = exponentDigits;
+            exponent += negative ? -value : value;
+        }
+        if (!valid || i != to) {
+            throw new IllegalArgumentException(file + ":" + lineNumber + ": invalid number "
+                    + text(from, to));
+        }
+        if (mantissa < (1L << 53) && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the result is correctly rounded
+            return exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        }
+        return Double.parseDouble(text(from, to));
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = window.get(i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,325 @@
+package ch.unine.os.as2;
+
+import ch.unine.os.as2.device.Device;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Workload definition, as read from a .run file of the process scheduling simulator.
+ * <p/>
+ * A .run file starts with global settings (name, comment, default algorithm, random seed, context switch times and
+ * optionally the {@link Machine} description and its I/O devices) followed by one or more process blocks, each
+ * introduced by a
+ * {@code numprocs} line.
+ * <p/>
+ * Recorded processes can be added, or used alone, with {@code trace <file>}: the trace, read by {@link TraceReader},
+ * is replayed as it is and its path is relative to the .run file.
+ */
+public class Workload {
+    private final String name;
+    private final String comment;
+    private final String algorithm;
+    private final long seed;
+    private final double contextSwitchIn;
+    private final double contextSwitchOut;
+    private final Machine machine;
+    private final List<ProcessBlock> blocks;
+    private final Path trace;
+
+    /**
+     * @param trace The process trace to replay, or null
+     */
+    public Workload(String name, String comment, String algorithm, long seed, double contextSwitchIn,
+                    double contextSwitchOut, Machine machine, List<ProcessBlock> blocks, Path trace) {
+        this.name = name;
+        this.comment = comment;
+        this.algorithm = algorithm;
+        this.seed = seed;
+        this.contextSwitchIn = contextSwitchIn;
+        this.contextSwitchOut = contextSwitchOut;
+        this.machine = machine;
+        this.blocks = Collections.unmodifiableList(new ArrayList<>(blocks));
+        this.trace = trace;
+    }
+
+    /**
+     * Read a workload from a .run file
+     *
+     * @param file Path to the .run file
+     * @return The parsed workload
+     * @throws IOException              If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a valid workload definition
+     */
+    public static Workload parse(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.endsWith(".run") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        String comment = "";
+        String algorithm = "FCFS";
+        long seed = 0;
+        double cstin = 0;
+        double cstout = 0;
+        int cores = 1;
+        double migrationCost = 0;
+        String balance = "none";
+        double balanceInterval = 0;
+        List<Device> devices = new ArrayList<>();
+        List<ProcessBlock> blocks = new ArrayList<>();
+        Path trace = null;
+        BlockParser block = null;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty()) {
+                    continue;
+                }
+                try {
+                    switch (tokens[0]) {
+                        case "name":
+                            name = rest(line, tokens[0]);
+                            break;
+                        case "comment":
+                            comment = rest(line, tokens[0]);
+                            break;
+                        case "algorithm":
+                            algorithm = rest(line, tokens[0]);
+                            break;
+                        case "seed":
+                            seed = Long.parseLong(value(tokens));
+                            break;
+                        case "cstin":
+                            cstin = Double.parseDouble(value(tokens));
+                            break;
+                        case "cstout":
+                            cstout = Double.parseDouble(value(tokens));
+                            break;
+                        case "cores":
+                            cores = Integer.parseInt(value(tokens));
+                            break;
+                        case "migrationcost":
+                            migrationCost = Double.parseDouble(value(tokens));
+                            break;
+                        case "balance":
+                            balance = rest(line, tokens[0]);
+                            break;
+                        case "balanceinterval":
+                            balanceInterval = Double.parseDouble(value(tokens));
+                            break;
+                        case "device":
+                            devices.add(Device.parse(tokens));
+                            break;
+                        case "trace":
+                            trace = file.toAbsolutePath().resolveSibling(rest(line, tokens[0]));
+                            break;
+                        case "numprocs":
+                            if (block != null) {
+                                blocks.add(block.build());
+                            }
+                            block = new BlockParser(Integer.parseInt(value(tokens)));
+                            break;
+                        default:
+                            if (block == null || !block.accept(tokens)) {
+                                throw new IllegalArgumentException("Unknown key " + tokens[0]);
+                            }
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        try {
+            if (block != null) {
+                blocks.add(block.build());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+        if (blocks.isEmpty() && trace == null) {
+            throw new IllegalArgumentException(file + ": no process defined (numprocs or trace missing)");
+        }
+        Machine machine;
+        try {
+            machine = new Machine(cores, migrationCost, false, false, balanceInterval, devices).withBalance(balance);
+            for (ProcessBlock b : blocks) {
+                if (b.getDevice() != null && machine.indexOfDevice(b.getDevice()) < 0) {
+                    throw new IllegalArgumentException("Unknown I/O device " + b.getDevice());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+        return new Workload(name, comment, algorithm, seed, cstin, cstout, machine, blocks, trace);
+    }
+
+    private static String value(String[] tokens) {
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("Missing value for " + tokens[0]);
+        }
+        return tokens[1];
+    }
+
+    private static String rest(String line, String key) {
+        return line.trim().substring(key.length()).trim();
+    }
+
+    /**
+     * Accumulates the keys of a process block until the next block starts
+     */
+    private static class BlockParser {
+        private final int numProcs;
+        private double firstArrival = 0;
+        private Distribution interArrival = new Distribution.Constant(0);
+        private Distribution duration;
+        private Distribution cpuBurst;
+        private Distribution ioBurst;
+        private int basePriority = 1;
+        private Distribution deadline;
+        private String device;
+
+        BlockParser(int numProcs) {
+            if (numProcs < 0) {
+                throw new IllegalArgumentException("Negative numprocs");
+            }
+            this.numProcs = numProcs;
+        }
+
+        /**
+         * @return true if the line was a key of a process block
+         */
+        boolean accept(String[] tokens) {
+            switch (tokens[0]) {
+                case "firstarrival":
+                    firstArrival = Double.parseDouble(value(tokens));
+                    return true;
+                case "interarrival":
+                    interArrival = Distribution.parse(tokens, 1);
+                    return true;
+                case "duration":
+                    duration = Distribution.parse(tokens, 1);
+                    return true;
+                case "cpuburst":
+                    cpuBurst = Distribution.parse(tokens, 1);
+                    return true;
+                case "ioburst":
+                    ioBurst = Distribution.parse(tokens, 1);
+                    return true;
+                case "deadline":
+                    deadline = Distribution.parse(tokens, 1);
+                    return true;
+                case "iodevice":
+                    device = value(tokens);
+                    return true;
+                case "basepriority":
+                    basePriority = Integer.parseInt(value(tokens));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        ProcessBlock build() {
+            if (duration == null || cpuBurst == null || ioBurst == null) {
+                throw new IllegalArgumentException("Process block needs duration, cpuburst and ioburst");
+            }
+            return new ProcessBlock(numProcs, firstArrival, interArrival, duration, cpuBurst, ioBurst, basePriority,
+                    deadline, device);
+        }
+    }
+
+    /**
+     * @param factor Multiplier of the number of processes
+     * @return A copy of this workload where every block has factor times more processes (the trace is unchanged)
+     */
+    public Workload scaled(int factor) {
+        if (factor == 1) {
+            return this;
+        }
+        List<ProcessBlock> scaledBlocks = new ArrayList<>();
+        for (ProcessBlock block : blocks) {
+            scaledBlocks.add(block.scaled(factor));
+        }
+        return new Workload(name, comment, algorithm, seed, contextSwitchIn, contextSwitchOut, machine, scaledBlocks,
+                trace);
+    }
+
+    /**
+     * @param machine The machine to simulate
+     * @return A copy of this workload running on another machine
+     */
+    public Workload withMachine(Machine machine) {
+        return new Workload(name, comment, algorithm, seed, contextSwitchIn, contextSwitchOut, machine, blocks, trace);
+    }
+
+    /**
+     * @return The total number of processes over all the blocks, not counting the trace
+     */
+    public long getTotalProcesses() {
+        long total = 0;
+        for (ProcessBlock block : blocks) {
+            total += block.getNumProcs();
+        }
+        return total;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * @return The default algorithm of the workload, e.g. "RR 1"
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Time needed to switch a process in (cstin)
+     */
+    public double getContextSwitchIn() {
+        return contextSwitchIn;
+    }
+
+    /**
+     * @return Time needed to switch a process out (cstout)
+     */
+    public double getContextSwitchOut() {
+        return contextSwitchOut;
+    }
+
+    /**
+     * @return The machine the workload runs on (one core unless the .run file says otherwise)
+     */
+    public Machine getMachine() {
+        return machine;
+    }
+
+    public List<ProcessBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return The process trace replayed in addition to the blocks, or null
+     */
+    public Path getTrace() {
+        return trace;
+    }
+}
@@ -0,0 +1,97 @@
+package ch.unine.os.as2.device;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+
+/**
+ * Requests grouped by cylinder, for the disciplines that choose the next cylinder from the position of the head.
+ * <p/>
+ * Each cylinder has a FIFO list of its requests, linked through an array indexed by pid, and a bit set marks
+ * the cylinders with requests, so the nearest one in either direction is found 64 cylinders at a time.
+ * Requests of the same cylinder are served in the order they were made.
+ */
+abstract class CylinderQueue implements RequestQueue {
+    private final int[] first;
+    private final int[] last;
+    private final long[] pending;
+    private int[] next = new int[64];
+    private int size;
+
+    /**
+     * @param cylinders Number of cylinders of the device
+     */
+    CylinderQueue(int cylinders) {
+        first = new int[cylinders];
+        last = new int[cylinders];
+        pending = new long[(cylinders + 63) >>> 6];
+    }
+
+    @Override
+    public void add(int pid, int cylinder) {
+        if (pid >= next.length) {
+            next = Arrays.copyOf(next, Math.max(pid + 1, next.length * 2));
+        }
+        next[pid] = ProcessTable.NONE;
+        if ((pending[cylinder >>> 6] & (1L << cylinder)) == 0) {
+            pending[cylinder >>> 6] |= 1L << cylinder;
+            first[cylinder] = pid;
+        } else {
+            next[last[cylinder]] = pid;
+        }
+        last[cylinder] = pid;
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove the oldest request of a cylinder
+     *
+     * @param cylinder A cylinder with requests
+     * @return The process of the request
+     */
+    int take(int cylinder) {
+        int pid = first[cylinder];
+        if (pid == last[cylinder]) {
+            pending[cylinder >>> 6] &= ~(1L << cylinder);
+        } else {
+            first[cylinder] = next[pid];
+        }
+        size--;
+        return pid;
+    }
+
+    /**
+     * @return The first cylinder with requests at or after the given one, -1 if there is none
+     */
+    int above(int cylinder) {
+        int word = cylinder >>> 6;
+        long bits = pending[word] & (-1L << cylinder);
+        while (bits == 0) {
+            if (++word == pending.length) {
+                return -1;
+            }
+            bits = pending[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @return The last cylinder with requests at or before the given one, -1 if there is none
+     */
+    int below(int cylinder) {
+        int word = cylinder >>> 6;
+        long bits = pending[word] & (-1L >>> (63 - (cylinder & 63)));
+        while (bits == 0) {
+            if (--word < 0) {
+                return -1;
+            }
+            bits = pending[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+}
@@ -0,0 +1,145 @@
+package ch.unine.os.as2.device;
+
+import java.util.Locale;
+
+/**
+ * I/O device of the simulated machine, such as a disk, shared by the processes of the blocks that use it.
+ * <p/>
+ * The device serves one request at a time; the others wait in its queue, in the order chosen by its discipline:
+ * <ul>
+ * <li>{@code FIFO}: in the order of the requests, see {@link FifoQueue}</li>
+ * <li>{@code SSTF}: closest to the head first, see {@link SstfQueue}</li>
+ * <li>{@code SCAN}: elevator, see {@link ScanQueue}</li>
+ * </ul>
+ * Each request lies on a cylinder drawn uniformly among those of the device. Serving it takes the time to move the
+ * head there, the seek time per cylinder crossed, plus the I/O burst of the process, its transfer time.
+ * <p/>
+ * In a .run file: {@code device <name> FIFO|SSTF|SCAN [cylinders N] [seektime T]}, with one cylinder and no seek
+ * time by default. The I/O bursts of a block go to a device with {@code iodevice <name>}; those of the other
+ * blocks remain pure delays.
+ */
+public class Device {
+
+    /**
+     * Order in which the waiting requests are served
+     */
+    public enum Discipline {
+        FIFO, SSTF, SCAN;
+
+        /**
+         * @param name Name of the discipline, case insensitive
+         * @return The discipline
+         * @throws IllegalArgumentException If the name is not known
+         */
+        public static Discipline parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown I/O discipline: " + name
+                        + " (expected FIFO, SSTF or SCAN)");
+            }
+        }
+    }
+
+    private final String name;
+    private final Discipline discipline;
+    private final int cylinders;
+    private final double seekTime;
+
+    /**
+     * @param name       Name of the device, referred to by iodevice
+     * @param discipline Order in which the waiting requests are served
+     * @param cylinders  Number of cylinders
+     * @param seekTime   Time to move the head by one cylinder
+     */
+    public Device(String name, Discipline discipline, int cylinders, double seekTime) {
+        if (cylinders < 1) {
+            throw new IllegalArgumentException("A device needs at least one cylinder");
+        }
+        if (!(seekTime >= 0)) {
+            throw new IllegalArgumentException("The seek time cannot be negative");
+        }
+        this.name = name;
+        this.discipline = discipline;
+        this.cylinders = cylinders;
+        this.seekTime = seekTime;
+    }
+
+    /**
+     * Parse a device from the tokens of a .run file line
+     *
+     * @param tokens The tokens of the line, starting with "device"
+     * @return The parsed device
+     * @throws IllegalArgumentException If the line is not a valid device
+     */
+    public static Device parse(String[] tokens) {
+        if (tokens.length < 3) {
+            throw new IllegalArgumentException("Expected: device <name> FIFO|SSTF|SCAN [cylinders N] [seektime T]");
+        }
+        int cylinders = 1;
+        double seekTime = 0;
+        for (int i = 3; i < tokens.length; i += 2) {
+            if (i + 1 == tokens.length) {
+                throw new IllegalArgumentException("Missing value for " + tokens[i]);
+            }
+            switch (tokens[i]) {
+                case "cylinders":
+                    cylinders = Integer.parseInt(tokens[i + 1]);
+                    break;
+                case "seektime":
+                    seekTime = Double.parseDouble(tokens[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown device setting " + tokens[i]);
+            }
+        }
+        return new Device(tokens[1], Discipline.parse(tokens[2]), cylinders, seekTime);
+    }
+
+    /**
+     * @return A copy of this device serving its requests in another order
+     */
+    public Device withDiscipline(Discipline discipline) {
+        return new Device(name, discipline, cylinders, seekTime);
+    }
+
+    /**
+     * @return A new empty queue for one simulation run
+     */
+    public RequestQueue newQueue() {
+        switch (discipline) {
+            case FIFO:
+                return new FifoQueue();
+            case SSTF:
+                return new SstfQueue(cylinders);
+            case SCAN:
+                return new ScanQueue(cylinders);
+            default:
+                throw new IllegalStateException(discipline.toString());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Discipline getDiscipline() {
+        return discipline;
+    }
+
+    public int getCylinders() {
+        return cylinders;
+    }
+
+    /**
+     * @return Time to move the head by one cylinder
+     */
+    public double getSeekTime() {
+        return seekTime;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + discipline + ", " + cylinders + " cylinder(s), seek time " + seekTime;
+    }
+}
@@ -0,0 +1,48 @@
+package ch.unine.os.as2.device;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * First come, first served: requests are served in the order they are made, wherever they are on the device.
+ * <p/>
+ * Requests wait in a circular array whose size is a power of two.
+ */
+public class FifoQueue implements RequestQueue {
+    private int[] pids = new int[64];
+    private int first;
+    private int size;
+
+    @Override
+    public void add(int pid, int cylinder) {
+        if (size == pids.length) {
+            grow();
+        }
+        pids[(first + size) & (pids.length - 1)] = pid;
+        size++;
+    }
+
+    @Override
+    public int poll(int head) {
+        if (size == 0) {
+            return ProcessTable.NONE;
+        }
+        int pid = pids[first];
+        first = (first + 1) & (pids.length - 1);
+        size--;
+        return pid;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] larger = new int[pids.length * 2];
+        for (int i = 0; i < size; i++) {
+            larger[i] = pids[(first + i) & (pids.length - 1)];
+        }
+        pids = larger;
+        first = 0;
+    }
+}
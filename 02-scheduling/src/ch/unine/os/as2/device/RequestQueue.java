@@ -0,0 +1,31 @@
+package ch.unine.os.as2.device;
+
+/**
+ * Queue of the I/O requests waiting for a device, ordered by a service discipline.
+ * <p/>
+ * Requests are identified by the pid of the process that made them: a process blocked on I/O has a single
+ * request pending. The cylinder of a request tells the disciplines that minimize head movements where it is.
+ */
+public interface RequestQueue {
+
+    /**
+     * A process requests I/O while the device is busy
+     *
+     * @param pid      The process, blocked until its request is served
+     * @param cylinder Position of the request on the device
+     */
+    void add(int pid, int cylinder);
+
+    /**
+     * Choose the next request to serve and remove it from the queue
+     *
+     * @param head Cylinder where the head of the device is
+     * @return The process whose request is chosen, or {@link ch.unine.os.as2.ProcessTable#NONE} if none is waiting
+     */
+    int poll(int head);
+
+    /**
+     * @return The number of waiting requests
+     */
+    int size();
+}
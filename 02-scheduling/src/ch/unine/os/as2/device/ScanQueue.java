@@ -0,0 +1,33 @@
+package ch.unine.os.as2.device;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Elevator: the head sweeps the cylinders in one direction, serving the requests it meets, and turns back
+ * after the last request in that direction (the LOOK variant of SCAN, which does not travel to the edge of the
+ * device when no request is there). The cylinder under the head counts as being in the direction of the sweep,
+ * so requests that keep arriving there are served before the sweep moves on, and may delay the others.
+ */
+public class ScanQueue extends CylinderQueue {
+    private boolean up = true;
+
+    /**
+     * @param cylinders Number of cylinders of the device
+     */
+    public ScanQueue(int cylinders) {
+        super(cylinders);
+    }
+
+    @Override
+    public int poll(int head) {
+        if (size() == 0) {
+            return ProcessTable.NONE;
+        }
+        int cylinder = up ? above(head) : below(head);
+        if (cylinder < 0) {
+            up = !up;
+            cylinder = up ? above(head) : below(head);
+        }
+        return take(cylinder);
+    }
+}
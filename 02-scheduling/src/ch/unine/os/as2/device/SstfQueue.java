@@ -0,0 +1,29 @@
+package ch.unine.os.as2.device;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Shortest seek time first: the request closest to the head is served next. Seeks are short, but requests far
+ * from the busy cylinders may wait for a long time.
+ */
+public class SstfQueue extends CylinderQueue {
+
+    /**
+     * @param cylinders Number of cylinders of the device
+     */
+    public SstfQueue(int cylinders) {
+        super(cylinders);
+    }
+
+    @Override
+    public int poll(int head) {
+        if (size() == 0) {
+            return ProcessTable.NONE;
+        }
+        int above = above(head);
+        int below = below(head);
+        // Ties go to the cylinder after the head
+        boolean up = below < 0 || above >= 0 && above - head <= head - below;
+        return take(up ? above : below);
+    }
+}
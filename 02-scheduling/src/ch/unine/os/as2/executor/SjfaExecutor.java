@@ -0,0 +1,376 @@
+package ch.unine.os.as2.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread pool running the pending task predicted to be the shortest first, like the SJFA algorithm of the simulator.
+ * <p/>
+ * Tasks are grouped in classes by a label given at submission. The run time of the tasks of each label is predicted
+ * by exponential averaging of the measured run times, tau(n+1) = alpha * t(n) + (1 - alpha) * tau(n), and pending
+ * tasks are ordered by the prediction of their label at submission time. Tasks with the same prediction run in
+ * submission order. A label without history gets the initial estimate.
+ * <p/>
+ * Like SJF, this minimizes the mean waiting time but may starve long tasks as long as shorter ones keep arriving.
+ * Tasks submitted without a label (through the plain {@link java.util.concurrent.ExecutorService} methods) are
+ * labelled with the name of their class.
+ */
+public class SjfaExecutor extends AbstractExecutorService {
+
+    /**
+     * A pending task, with the prediction that orders it
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final Runnable task;
+        private final String label;
+        private final double estimate;
+        private final long sequence;
+
+        Entry(Runnable task, String label, double estimate, long sequence) {
+            this.task = task;
+            this.label = label;
+            this.estimate = estimate;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int order = Double.compare(estimate, other.estimate);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Future of a task submitted with a label, so that execute() finds the label back
+     */
+    private static class LabeledFutureTask<T> extends FutureTask<T> {
+        private final String label;
+
+        LabeledFutureTask(Callable<T> callable, String label) {
+            super(callable);
+            this.label = label;
+        }
+
+        LabeledFutureTask(Runnable runnable, T result, String label) {
+            super(runnable, result);
+            this.label = label;
+        }
+    }
+
+    /**
+     * Prediction of the run time of the tasks of one label, in nanoseconds
+     */
+    private static class Estimate {
+        private final AtomicLong bits;
+
+        Estimate(double initial) {
+            bits = new AtomicLong(Double.doubleToRawLongBits(initial));
+        }
+
+        double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+
+        void update(double alpha, double measured) {
+            long current;
+            long next;
+            do {
+                current = bits.get();
+                double estimate = Double.longBitsToDouble(current);
+                next = Double.doubleToRawLongBits(alpha * measured + (1 - alpha) * estimate);
+            } while (!bits.compareAndSet(current, next));
+        }
+    }
+
+    private final double alpha;
+    private final double initialEstimate;
+    private final ConcurrentHashMap<String, Estimate> estimates = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ThreadFactory threadFactory;
+    private long nextSequence;
+    private boolean shutdown;
+    private int liveWorkers;
+
+    /**
+     * @param threads         Number of worker threads
+     * @param alpha           Weight of the last run time in the prediction, between 0 and 1
+     * @param initialEstimate Prediction for a label without history
+     * @param unit            Unit of the initial estimate
+     */
+    public SjfaExecutor(int threads, double alpha, long initialEstimate, TimeUnit unit) {
+        this(threads, alpha, initialEstimate, unit, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * @param threads         Number of worker threads
+     * @param alpha           Weight of the last run time in the prediction, between 0 and 1
+     * @param initialEstimate Prediction for a label without history
+     * @param unit            Unit of the initial estimate
+     * @param threadFactory   Factory of the worker threads
+     */
+    public SjfaExecutor(int threads, double alpha, long initialEstimate, TimeUnit unit, ThreadFactory threadFactory) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        if (alpha < 0 || alpha > 1) {
+            throw new IllegalArgumentException("The SJFA alpha must be between 0 and 1");
+        }
+        this.alpha = alpha;
+        this.initialEstimate = unit.toNanos(initialEstimate);
+        this.threadFactory = threadFactory;
+        lock.lock();
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.add(threadFactory.newThread(this::work));
+                liveWorkers++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Execute a task of the given class
+     *
+     * @param label The class of the task, whose past run times predict this one
+     * @param task  The task
+     * @throws RejectedExecutionException If the executor is shut down
+     */
+    public void execute(String label, Runnable task) {
+        if (task == null || label == null) {
+            throw new NullPointerException();
+        }
+        Estimate estimate = estimates.computeIfAbsent(label, l -> new Estimate(initialEstimate));
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor shut down");
+            }
+            queue.add(new Entry(task, label, estimate.get(), nextSequence++));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Submit a task of the given class
+     *
+     * @param label The class of the task, whose past run times predict this one
+     * @param task  The task
+     * @return The future of the result of the task
+     */
+    public <T> Future<T> submit(String label, Callable<T> task) {
+        if (task == null || label == null) {
+            throw new NullPointerException();
+        }
+        LabeledFutureTask<T> future = new LabeledFutureTask<>(task, label);
+        execute(label, future);
+        return future;
+    }
+
+    /**
+     * Submit a task of the given class
+     *
+     * @param label The class of the task, whose past run times predict this one
+     * @param task  The task
+     * @return A future completed when the task completes
+     */
+    public Future<?> submit(String label, Runnable task) {
+        if (task == null || label == null) {
+            throw new NullPointerException();
+        }
+        LabeledFutureTask<Void> future = new LabeledFutureTask<>(task, null, label);
+        execute(label, future);
+        return future;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        String label = task instanceof LabeledFutureTask
+                ? ((LabeledFutureTask<?>) task).label : task.getClass().getName();
+        execute(label, task);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new LabeledFutureTask<>(callable, callable.getClass().getName());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new LabeledFutureTask<>(runnable, value, runnable.getClass().getName());
+    }
+
+    /**
+     * @param label The class of tasks
+     * @param unit  Unit of the result
+     * @return The predicted run time of the next task of this class
+     */
+    public double getEstimate(String label, TimeUnit unit) {
+        Estimate estimate = estimates.get(label);
+        double nanos = estimate != null ? estimate.get() : initialEstimate;
+        return nanos / unit.toNanos(1);
+    }
+
+    /**
+     * @return Number of tasks waiting for a thread
+     */
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loop of the worker threads, until the executor is shut down and its queue is empty. A task throwing an
+     * {@link Error} ends its worker, which is replaced by a new one unless the executor is shut down.
+     */
+    private void work() {
+        boolean completed = false;
+        try {
+            while (true) {
+                Entry entry;
+                lock.lock();
+                try {
+                    // A task may return with the interrupt flag set: it must not stop the worker
+                    Thread.interrupted();
+                    while (queue.isEmpty() && !shutdown) {
+                        try {
+                            notEmpty.await();
+                        } catch (InterruptedException e) {
+                            // shutdownNow() sets shutdown before interrupting: otherwise keep waiting
+                        }
+                    }
+                    entry = queue.poll();
+                    if (entry == null) {
+                        completed = true;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                long start = System.nanoTime();
+                try {
+                    entry.task.run();
+                } catch (RuntimeException e) {
+                    // Same as a thread pool: report the failure and keep the worker
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                }
+                estimates.get(entry.label).update(alpha, System.nanoTime() - start);
+            }
+        } finally {
+            lock.lock();
+            try {
+                workers.remove(Thread.currentThread());
+                if (!completed && !shutdown) {
+                    // Killed by an Error: keep the number of workers, or the queued tasks could never run
+                    Thread worker = threadFactory.newThread(this::work);
+                    workers.add(worker);
+                    worker.start();
+                } else if (--liveWorkers == 0) {
+                    terminated.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                pending.add(entry.task);
+            }
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && liveWorkers == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && liveWorkers == 0)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = terminated.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ch.unine.os.as2.executor;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the response times of a FIFO ThreadPoolExecutor and of a SjfaExecutor on a mix of short and long tasks.
+ * <p/>
+ * Tasks arrive as a Poisson process sized for the given load of the pool. Each task spins on the CPU for its
+ * duration: 90% are short and 10% are twenty times longer, labelled "short" and "long". The response time of a
+ * task is measured from its planned arrival to its completion, so that a slow submitter does not hide queueing.
+ * <p/>
+ * Usage: SjfaExecutorBenchmark [threads] [tasks] [short task in us] [load]
+ * (by default one thread per processor, 20000 tasks, 50 us and 0.8)
+ */
+public class SjfaExecutorBenchmark {
+
+    private static final int LONG_FACTOR = 20;
+    private static final double LONG_SHARE = 0.1;
+
+    private static final AtomicLong sink = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        long shortNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 50);
+        double load = args.length > 3 ? Double.parseDouble(args[3]) : 0.8;
+
+        System.out.printf("%d threads, %d tasks, short tasks of %d us, long tasks of %d us, load %.2f%n",
+                threads, tasks, shortNanos / 1000, shortNanos * LONG_FACTOR / 1000, load);
+        // The first round warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            ThreadPoolExecutor fifo = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            run("FIFO", fifo, null, threads, tasks, shortNanos, load, round > 0);
+            SjfaExecutor sjfa = new SjfaExecutor(threads, 0.5, shortNanos, TimeUnit.NANOSECONDS);
+            run("SJFA 0.5", sjfa, sjfa, threads, tasks, shortNanos, load, round > 0);
+        }
+    }
+
+    private static void run(String name, ExecutorService executor, SjfaExecutor sjfa, int threads, int tasks,
+                            long shortNanos, double load, boolean print) throws InterruptedException {
+        Random random = new Random(42);
+        double meanService = shortNanos * (1 - LONG_SHARE + LONG_SHARE * LONG_FACTOR);
+        double meanInterArrival = meanService / (threads * load);
+        long[] responses = new long[tasks];
+        boolean[] isLong = new boolean[tasks];
+
+        long start = System.nanoTime();
+        double arrival = 0;
+        for (int i = 0; i < tasks; i++) {
+            arrival += -Math.log(1 - random.nextDouble()) * meanInterArrival;
+            long planned = start + (long) arrival;
+            long wait;
+            while ((wait = planned - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int task = i;
+            isLong[i] = random.nextDouble() < LONG_SHARE;
+            long duration = isLong[i] ? shortNanos * LONG_FACTOR : shortNanos;
+            Runnable body = () -> {
+                spin(duration);
+                responses[task] = System.nanoTime() - planned;
+            };
+            if (sjfa != null) {
+                sjfa.execute(isLong[i] ? "long" : "short", body);
+            } else {
+                executor.execute(body);
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        if (print) {
+            System.out.printf("%-10s %.3f s%n", name, elapsed / 1e9);
+            print("short", responses, isLong, false);
+            print("long", responses, isLong, true);
+            if (sjfa != null) {
+                System.out.printf("%12s predictions: short %.1f us, long %.1f us%n", "",
+                        sjfa.getEstimate("short", TimeUnit.NANOSECONDS) / 1000,
+                        sjfa.getEstimate("long", TimeUnit.NANOSECONDS) / 1000);
+            }
+        }
+    }
+
+    private static void print(String label, long[] responses, boolean[] isLong, boolean longTasks) {
+        long[] selected = new long[responses.length];
+        int count = 0;
+        double sum = 0;
+        for (int i = 0; i < responses.length; i++) {
+            if (isLong[i] == longTasks) {
+                selected[count++] = responses[i];
+                sum += responses[i];
+            }
+        }
+        Arrays.sort(selected, 0, count);
+        System.out.printf("%12s %6d tasks: response mean %9.1f us, p50 %9.1f us, p99 %9.1f us%n", label, count,
+                sum / count / 1000, selected[count / 2] / 1e3, selected[(int) (count * 0.99)] / 1e3);
+    }
+
+    /**
+     * Keep the CPU busy for the given time
+     */
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long iterations = 0;
+        while (System.nanoTime() < end) {
+            iterations++;
+        }
+        sink.addAndGet(iterations);
+    }
+}
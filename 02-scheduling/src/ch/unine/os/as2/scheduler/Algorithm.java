@@ -0,0 +1,278 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessBlock;
+import ch.unine.os.as2.ProcessTable;
+import ch.unine.os.as2.RandomStream;
+import ch.unine.os.as2.Workload;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A scheduling algorithm and its parameters, as written after the {@code algorithm} keyword of
+ * .run and .exp files:
+ * <ul>
+ * <li>{@code FCFS}</li>
+ * <li>{@code RR quantum}</li>
+ * <li>{@code SJF}</li>
+ * <li>{@code SJFA alpha}</li>
+ * <li>{@code MLFQ levels boost [q0 [q1 ...]]}: multi-level feedback queue with the given number of levels and
+ * boost period (0 for none). Missing quanta are twice the previous one, starting at 1.</li>
+ * <li>{@code CFS [latency [granularity]]}: completely fair scheduler, weighted by basepriority.</li>
+ * <li>{@code LOTTERY quantum}: lottery scheduling, with basepriority tickets per process.</li>
+ * <li>{@code STRIDE quantum}: stride scheduling, with basepriority tickets per process.</li>
+ * <li>{@code EDF [quantum]}: earliest deadline first, preemptive after each quantum if one is given.</li>
+ * <li>{@code LLF [quantum]}: least laxity first, preemptive after each quantum if one is given.</li>
+ * </ul>
+ */
+public class Algorithm {
+    private final String name;
+    private final double[] parameters;
+
+    private Algorithm(String name, double[] parameters) {
+        this.name = name;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @param specification The algorithm name followed by its parameters, separated by spaces
+     * @return The parsed algorithm
+     * @throws IllegalArgumentException If the algorithm is unknown or its parameters are invalid
+     */
+    public static Algorithm parse(String specification) {
+        return parse(specification.trim().split("\\s+"), 0, -1);
+    }
+
+    /**
+     * @param tokens Tokens holding the specification
+     * @param from   Index of the algorithm name
+     * @param to     Index after the last parameter, or -1 to read until the end of the tokens
+     * @return The parsed algorithm
+     * @throws IllegalArgumentException If the algorithm is unknown or its parameters are invalid
+     */
+    public static Algorithm parse(String[] tokens, int from, int to) {
+        if (to < 0) {
+            to = tokens.length;
+        }
+        if (from >= to) {
+            throw new IllegalArgumentException("Missing algorithm");
+        }
+        String name = tokens[from].toUpperCase();
+        double[] parameters = new double[to - from - 1];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = Double.parseDouble(tokens[from + 1 + i]);
+        }
+        Algorithm algorithm = new Algorithm(name, parameters);
+        algorithm.checkParameters();
+        return algorithm;
+    }
+
+    private void checkParameters() {
+        switch (name) {
+            case "FCFS":
+            case "SJF":
+                expectParameters(0);
+                break;
+            case "RR":
+            case "SJFA":
+            case "LOTTERY":
+            case "STRIDE":
+                expectParameters(1);
+                break;
+            case "MLFQ":
+                if (parameters.length < 2 || parameters[0] != Math.rint(parameters[0])
+                        || parameters[0] < 1 || parameters[0] > MlfqScheduler.MAX_LEVELS
+                        || parameters.length > 2 + parameters[0]) {
+                    throw new IllegalArgumentException("MLFQ expects: levels boost [quantum per level...]");
+                }
+                break;
+            case "EDF":
+            case "LLF":
+                if (parameters.length > 1) {
+                    throw new IllegalArgumentException(name + " expects: [quantum]");
+                }
+                break;
+            case "CFS":
+                if (parameters.length > 2) {
+                    throw new IllegalArgumentException("CFS expects: [latency [granularity]]");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+
+    private void expectParameters(int count) {
+        if (parameters.length != count) {
+            throw new IllegalArgumentException(name + " expects " + count + " parameter(s), got " + parameters.length);
+        }
+    }
+
+    /**
+     * Create the ready queues of the cores for one simulation run. The queues of an algorithm that keeps
+     * per-process state share it, so that a process keeps its state when it migrates.
+     *
+     * @param workload  The simulated workload, used by the algorithms that derive settings from it
+     * @param processes The processes of the simulation
+     * @param cores     The number of cores
+     * @param random    The stream of the draws of the schedulers; each core gets its own substream
+     * @return One new scheduler per core
+     */
+    public Scheduler[] newSchedulers(Workload workload, ProcessTable processes, int cores, RandomStream random) {
+        Scheduler[] schedulers = new Scheduler[cores];
+        if (name.equals("MLFQ")) {
+            MlfqScheduler.SharedState state = new MlfqScheduler.SharedState(mlfqQuanta(), parameters[1]);
+            for (int core = 0; core < cores; core++) {
+                schedulers[core] = new MlfqScheduler(processes, state);
+            }
+            return schedulers;
+        }
+        if (name.equals("CFS")) {
+            checkWeights(workload);
+            CfsScheduler.SharedState state = new CfsScheduler.SharedState();
+            for (int core = 0; core < cores; core++) {
+                schedulers[core] = new CfsScheduler(processes, state, cfsLatency(), cfsGranularity());
+            }
+            return schedulers;
+        }
+        if (name.equals("LOTTERY")) {
+            checkWeights(workload);
+            LotteryScheduler.SharedState state = new LotteryScheduler.SharedState();
+            for (int core = 0; core < cores; core++) {
+                schedulers[core] = new LotteryScheduler(processes, state, parameters[0], random.substream(core));
+            }
+            return schedulers;
+        }
+        if (name.equals("STRIDE")) {
+            checkWeights(workload);
+            StrideScheduler.SharedState state = new StrideScheduler.SharedState();
+            for (int core = 0; core < cores; core++) {
+                schedulers[core] = new StrideScheduler(processes, state, parameters[0]);
+            }
+            return schedulers;
+        }
+        for (int core = 0; core < cores; core++) {
+            schedulers[core] = newScheduler(workload, processes, random.substream(core));
+        }
+        return schedulers;
+    }
+
+    /**
+     * Create a fresh ready queue for one simulation run
+     *
+     * @param workload  The simulated workload, used by the algorithms that derive settings from it
+     * @param processes The processes of the simulation
+     * @param random    The source of the draws of the algorithms that draw
+     * @return A new scheduler
+     */
+    public Scheduler newScheduler(Workload workload, ProcessTable processes, RandomGenerator random) {
+        switch (name) {
+            case "FCFS":
+                return new FcfsScheduler();
+            case "RR":
+                return new RoundRobinScheduler(parameters[0]);
+            case "SJF":
+                return new SjfScheduler(processes);
+            case "SJFA":
+                return new SjfaScheduler(processes, parameters[0], meanCpuBurst(workload));
+            case "MLFQ":
+                return new MlfqScheduler(processes, mlfqQuanta(), parameters[1]);
+            case "CFS":
+                checkWeights(workload);
+                return new CfsScheduler(processes, cfsLatency(), cfsGranularity());
+            case "EDF":
+                return new EdfScheduler(processes, parameters.length > 0 ? parameters[0] : Double.POSITIVE_INFINITY);
+            case "LLF":
+                return new LlfScheduler(processes, parameters.length > 0 ? parameters[0] : Double.POSITIVE_INFINITY);
+            case "LOTTERY":
+                checkWeights(workload);
+                return new LotteryScheduler(processes, parameters[0], random);
+            case "STRIDE":
+                checkWeights(workload);
+                return new StrideScheduler(processes, parameters[0]);
+            default:
+                throw new IllegalStateException(name);
+        }
+    }
+
+    /**
+     * @return The quanta of the MLFQ levels: those given, then doubling the previous one
+     */
+    private double[] mlfqQuanta() {
+        double[] quanta = new double[(int) parameters[0]];
+        for (int level = 0; level < quanta.length; level++) {
+            if (2 + level < parameters.length) {
+                quanta[level] = parameters[2 + level];
+            } else {
+                quanta[level] = level == 0 ? 1 : 2 * quanta[level - 1];
+            }
+        }
+        return quanta;
+    }
+
+    private double cfsLatency() {
+        return parameters.length > 0 ? parameters[0] : CfsScheduler.DEFAULT_LATENCY;
+    }
+
+    private double cfsGranularity() {
+        return parameters.length > 1 ? parameters[1] : CfsScheduler.DEFAULT_MIN_GRANULARITY;
+    }
+
+    /**
+     * Proportional-share algorithms use basepriority as a weight, which must therefore be positive
+     */
+    private void checkWeights(Workload workload) {
+        for (ProcessBlock block : workload.getBlocks()) {
+            if (block.getBasePriority() < 1) {
+                throw new IllegalArgumentException(name + " needs a positive basepriority in " + workload.getName());
+            }
+        }
+    }
+
+    /**
+     * @return The mean CPU burst over all the processes of the workload, used as initial prediction
+     */
+    private static double meanCpuBurst(Workload workload) {
+        double sum = 0;
+        long count = 0;
+        for (ProcessBlock block : workload.getBlocks()) {
+            sum += block.getCpuBurst().mean() * block.getNumProcs();
+            count += block.getNumProcs();
+        }
+        return count == 0 ? 1 : sum / count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return A copy of the numeric parameters of the algorithm
+     */
+    public double[] getParameters() {
+        return parameters.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name);
+        for (double parameter : parameters) {
+            builder.append(' ');
+            builder.append(parameter == Math.rint(parameter) ? Long.toString((long) parameter) : Double.toString(parameter));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Algorithm)) return false;
+        Algorithm other = (Algorithm) o;
+        return name.equals(other.name) && Arrays.equals(parameters, other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(parameters);
+    }
+}
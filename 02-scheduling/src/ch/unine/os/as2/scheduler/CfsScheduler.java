@@ -0,0 +1,185 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Completely fair scheduler, on the model of the Linux CFS.
+ * <ul>
+ * <li>Each process accumulates a virtual runtime: the CPU time it used divided by its weight, which is its
+ * basepriority in the .run file. A process of weight 2 gets twice as much CPU as a process of weight 1.</li>
+ * <li>The ready process with the smallest virtual runtime runs next. Ready processes are kept in a red-black tree
+ * ordered by virtual runtime, so adding and choosing a process are O(log n).</li>
+ * <li>The time slice is the scheduling latency shared between the ready processes in proportion to their weight,
+ * but never shorter than the minimal granularity.</li>
+ * <li>A new process starts at the minimal virtual runtime of the queue. A process back from I/O may not be more
+ * than half a latency behind it, so sleeping does not accumulate credit.</li>
+ * </ul>
+ * On a multi-core machine, the queues share the per-process virtual runtimes; a migrated process keeps its
+ * virtual runtime relative to the minimum of its queue.
+ * <p/>
+ * Processes with the same virtual runtime are ordered by serial number, so that the order does not depend on
+ * which pids are reused.
+ */
+public class CfsScheduler implements Scheduler {
+
+    /**
+     * Default scheduling latency, in the time unit of the workloads
+     */
+    public static final double DEFAULT_LATENCY = 6;
+    /**
+     * Default minimal time slice
+     */
+    public static final double DEFAULT_MIN_GRANULARITY = 0.75;
+
+    /**
+     * Per-process virtual runtimes, shared by the queues of all the cores
+     */
+    public static class SharedState {
+        /**
+         * Node of each pid in the trees, reused with the pid, so that the comparisons read a single object and
+         * adding a pid to a tree does not allocate a new node (the tree still allocates its own entry)
+         */
+        private Entity[] entities = new Entity[1024];
+
+        private Entity entity(int pid) {
+            if (pid >= entities.length) {
+                entities = Arrays.copyOf(entities, Math.max(pid + 1, entities.length * 2));
+            }
+            Entity entity = entities[pid];
+            if (entity == null) {
+                entity = new Entity(pid);
+                entities[pid] = entity;
+            }
+            return entity;
+        }
+    }
+
+    /**
+     * Scheduling state of a process
+     */
+    private static final class Entity {
+        private final int pid;
+        /**
+         * Serial number of the process holding the pid, to order the processes with the same virtual runtime
+         */
+        private int serial;
+        private double vruntime;
+        private boolean known;
+        /**
+         * Set while a migrated process carries a virtual runtime relative to the minimum of its former queue
+         */
+        private boolean relative;
+
+        private Entity(int pid) {
+            this.pid = pid;
+        }
+    }
+
+    private final ProcessTable processes;
+    private final SharedState state;
+    private final double latency;
+    private final double minGranularity;
+    private final TreeSet<Entity> tree;
+    /**
+     * Monotonic lower bound of the virtual runtimes of the queue
+     */
+    private double minVruntime;
+    private double totalWeight;
+
+    /**
+     * @param processes      The processes of the simulation
+     * @param latency        Period during which every ready process should run once
+     * @param minGranularity Minimal time slice
+     */
+    public CfsScheduler(ProcessTable processes, double latency, double minGranularity) {
+        this(processes, new SharedState(), latency, minGranularity);
+    }
+
+    /**
+     * @param processes      The processes of the simulation
+     * @param state          Per-process state, possibly shared with the queues of other cores
+     * @param latency        Period during which every ready process should run once
+     * @param minGranularity Minimal time slice
+     */
+    public CfsScheduler(ProcessTable processes, SharedState state, double latency, double minGranularity) {
+        if (!(latency > 0) || !(minGranularity > 0)) {
+            throw new IllegalArgumentException("The CFS latency and granularity must be positive");
+        }
+        this.processes = processes;
+        this.state = state;
+        this.latency = latency;
+        this.minGranularity = minGranularity;
+        this.tree = new TreeSet<>((a, b) -> {
+            int order = Double.compare(a.vruntime, b.vruntime);
+            return order != 0 ? order : Integer.compare(a.serial, b.serial);
+        });
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        Entity entity = state.entity(pid);
+        if (!entity.known) {
+            entity.known = true;
+            entity.serial = processes.getSerial(pid);
+            entity.vruntime = minVruntime;
+        } else if (entity.relative) {
+            entity.relative = false;
+            entity.vruntime += minVruntime;
+        } else {
+            entity.vruntime = Math.max(entity.vruntime, minVruntime - latency / 2);
+        }
+        tree.add(entity);
+        totalWeight += weight(pid);
+    }
+
+    @Override
+    public int poll(double now) {
+        Entity entity = tree.pollFirst();
+        if (entity == null) {
+            return ProcessTable.NONE;
+        }
+        totalWeight -= weight(entity.pid);
+        minVruntime = Math.max(minVruntime, entity.vruntime);
+        return entity.pid;
+    }
+
+    @Override
+    public int steal(double now) {
+        // Migrate the process that would wait the longest here
+        Entity entity = tree.pollLast();
+        if (entity == null) {
+            return ProcessTable.NONE;
+        }
+        totalWeight -= weight(entity.pid);
+        entity.vruntime -= minVruntime;
+        entity.relative = true;
+        return entity.pid;
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        double weight = weight(pid);
+        return Math.max(minGranularity, latency * weight / (totalWeight + weight));
+    }
+
+    @Override
+    public void descheduled(int pid, double ran) {
+        Entity entity = state.entities[pid];
+        entity.vruntime += ran / weight(pid);
+        if (processes.getCpuRemaining(pid) <= 1e-9) {
+            entity.known = false;
+        }
+    }
+
+    private double weight(int pid) {
+        return processes.getBasePriority(pid);
+    }
+}
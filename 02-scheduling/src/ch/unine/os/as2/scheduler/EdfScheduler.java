@@ -0,0 +1,37 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Earliest deadline first: the ready process whose deadline comes first runs first. Processes without a deadline
+ * run after all the others, in FIFO order.
+ * <p/>
+ * The simulator does not preempt a running process when another one arrives, so with a quantum, the running
+ * process goes back to the ready queue after each quantum to let a more urgent one run. Without a quantum,
+ * EDF is non-preemptive.
+ */
+public class EdfScheduler extends SjfScheduler {
+    private final double quantum;
+
+    /**
+     * @param processes The processes of the simulation
+     * @param quantum   Time after which the running process is preempted, infinite for none
+     */
+    public EdfScheduler(ProcessTable processes, double quantum) {
+        super(processes);
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("The quantum must be positive");
+        }
+        this.quantum = quantum;
+    }
+
+    @Override
+    protected double key(int pid) {
+        return processes.getDeadline(pid);
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        return quantum;
+    }
+}
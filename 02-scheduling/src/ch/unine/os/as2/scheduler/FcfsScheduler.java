@@ -0,0 +1,23 @@
+package ch.unine.os.as2.scheduler;
+
+/**
+ * First come, first served: processes run in the order they became ready, without preemption
+ */
+public class FcfsScheduler implements Scheduler {
+    private final PidQueue queue = new PidQueue();
+
+    @Override
+    public void add(int pid, double now) {
+        queue.addLast(pid);
+    }
+
+    @Override
+    public int poll(double now) {
+        return queue.pollFirst();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,27 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Least laxity first: the ready process with the least slack, its deadline minus the CPU time it still needs,
+ * runs first. The CPU time needed is known exactly, like the burst length in SJF.
+ * <p/>
+ * The laxity of every waiting process decreases at the same rate, so the order of the ready queue only changes
+ * when a process runs; the queue is ordered by deadline minus remaining CPU time, which does not depend on the
+ * current time. Like {@link EdfScheduler}, LLF needs a quantum to preempt the running process.
+ */
+public class LlfScheduler extends EdfScheduler {
+
+    /**
+     * @param processes The processes of the simulation
+     * @param quantum   Time after which the running process is preempted, infinite for none
+     */
+    public LlfScheduler(ProcessTable processes, double quantum) {
+        super(processes, quantum);
+    }
+
+    @Override
+    protected double key(int pid) {
+        return processes.getDeadline(pid) - processes.getCpuRemaining(pid);
+    }
+}
@@ -0,0 +1,198 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lottery scheduling: each ready process holds tickets, as many as its basepriority, and the process holding a
+ * ticket drawn at random runs for one quantum. Over time, each process gets a share of the CPU proportional to
+ * its tickets.
+ * <p/>
+ * A process that blocks after using a fraction f of its quantum gets compensation tickets: its tickets are
+ * multiplied by 1/f until it wins again, so that I/O-bound processes are not penalized for their short bursts.
+ * <p/>
+ * Ready processes occupy the slots of a Fenwick tree holding their tickets, so drawing the winner,
+ * adding and removing a process are O(log n).
+ */
+public class LotteryScheduler implements Scheduler {
+
+    /**
+     * Tickets per unit of basepriority, so that compensation tickets keep some precision
+     */
+    private static final long TICKET_UNIT = 1000;
+    /**
+     * Bound of the compensation factor, for processes that block almost immediately
+     */
+    private static final double MAX_COMPENSATION = 1000;
+
+    /**
+     * Per-process compensation factors, shared by the queues of all the cores
+     */
+    public static class SharedState {
+        private double[] compensations = new double[1024];
+
+        private double get(int pid) {
+            return pid < compensations.length && compensations[pid] > 0 ? compensations[pid] : 1;
+        }
+
+        private void set(int pid, double compensation) {
+            if (pid >= compensations.length) {
+                compensations = Arrays.copyOf(compensations, Math.max(pid + 1, compensations.length * 2));
+            }
+            compensations[pid] = compensation;
+        }
+    }
+
+    private final ProcessTable processes;
+    private final SharedState state;
+    private final double quantum;
+    private final RandomGenerator random;
+
+    /**
+     * Process in each slot, and its tickets
+     */
+    private int[] slots;
+    private long[] tickets;
+    /**
+     * Fenwick tree over the tickets of the slots (1-based)
+     */
+    private long[] tree;
+    private int[] freeSlots;
+    private int freeCount;
+    /**
+     * Number of slots ever used
+     */
+    private int used;
+    private int size;
+    private long totalTickets;
+
+    /**
+     * @param processes The processes of the simulation
+     * @param quantum   The time slice
+     * @param random    Source of the draws
+     */
+    public LotteryScheduler(ProcessTable processes, double quantum, RandomGenerator random) {
+        this(processes, new SharedState(), quantum, random);
+    }
+
+    /**
+     * @param processes The processes of the simulation
+     * @param state     Per-process state, possibly shared with the queues of other cores
+     * @param quantum   The time slice
+     * @param random    Source of the draws
+     */
+    public LotteryScheduler(ProcessTable processes, SharedState state, double quantum, RandomGenerator random) {
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("The lottery quantum must be positive");
+        }
+        this.processes = processes;
+        this.state = state;
+        this.quantum = quantum;
+        this.random = random;
+        this.slots = new int[64];
+        this.tickets = new long[64];
+        this.tree = new long[65];
+        this.freeSlots = new int[64];
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == slots.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        long count = Math.max(1, Math.round(processes.getBasePriority(pid) * TICKET_UNIT * state.get(pid)));
+        slots[slot] = pid;
+        tickets[slot] = count;
+        update(slot, count);
+        totalTickets += count;
+        size++;
+    }
+
+    @Override
+    public int poll(double now) {
+        if (size == 0) {
+            return ProcessTable.NONE;
+        }
+        int slot = find(random.nextLong(totalTickets));
+        int pid = slots[slot];
+        update(slot, -tickets[slot]);
+        totalTickets -= tickets[slot];
+        tickets[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+        // The compensation lasts until the process wins
+        state.set(pid, 1);
+        return pid;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        return quantum;
+    }
+
+    @Override
+    public void descheduled(int pid, double ran) {
+        if (processes.getCpuRemaining(pid) <= 1e-9) {
+            // The process completes, its pid will be reused
+            state.set(pid, 1);
+        } else if (processes.getBurstRemaining(pid) <= 1e-9 && ran < quantum) {
+            state.set(pid, ran > 0 ? Math.min(MAX_COMPENSATION, quantum / ran) : MAX_COMPENSATION);
+        }
+    }
+
+    /**
+     * Add a number of tickets to a slot
+     */
+    private void update(int slot, long delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @param ticket A ticket number, between 0 and the total number of tickets
+     * @return The slot holding this ticket, numbering the tickets slot after slot
+     */
+    private int find(long ticket) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= ticket) {
+                position = next;
+                ticket -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    private void grow() {
+        int capacity = slots.length * 2;
+        slots = Arrays.copyOf(slots, capacity);
+        tickets = Arrays.copyOf(tickets, capacity);
+        // Rebuild the tree in linear time
+        tree = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += tickets[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
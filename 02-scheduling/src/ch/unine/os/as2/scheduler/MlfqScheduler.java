@@ -0,0 +1,251 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+
+/**
+ * Multi-level feedback queue.
+ * <ul>
+ * <li>Level 0 has the highest priority; a process runs only if no process is ready at a higher level.</li>
+ * <li>Processes of a level share the CPU in round robin, with the quantum of the level.</li>
+ * <li>A new process starts at level 0.</li>
+ * <li>Once a process has used the quantum of its level (over one or several bursts), it moves down one level.
+ * A process doing short bursts before its I/O therefore stays at the top.</li>
+ * <li>Every boost period, all the processes move back to level 0, so CPU-bound processes do not starve.</li>
+ * </ul>
+ * All operations are O(1): each level is an intrusive linked list of pids, the non-empty levels are tracked in a
+ * bitmask, and a boost splices the lists together and bumps an epoch instead of visiting each process.
+ * <p/>
+ * On a multi-core machine, the queues of all the cores share the per-process state and the boost clock,
+ * so a migrated process keeps its level.
+ */
+public class MlfqScheduler implements Scheduler {
+
+    /**
+     * Maximal number of levels (size of the bitmask)
+     */
+    public static final int MAX_LEVELS = 64;
+
+    private static final int NONE = -1;
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Settings and per-process state, shared by the queues of all the cores
+     */
+    public static class SharedState {
+        private final double[] quanta;
+        private final double boostPeriod;
+
+        /*
+         * Per-process state, indexed by pid
+         */
+        private boolean[] registered;
+        private int[] next;
+        private int[] levels;
+        private double[] used;
+        private int[] epochs;
+
+        /**
+         * Number of boosts so far; a process whose epoch is older has been boosted to level 0
+         */
+        private int epoch;
+        private double nextBoost;
+
+        /**
+         * @param quanta      Quantum of each level, from the highest priority to the lowest
+         * @param boostPeriod Time between two priority boosts, 0 to never boost
+         */
+        public SharedState(double[] quanta, double boostPeriod) {
+            if (quanta.length < 1 || quanta.length > MAX_LEVELS) {
+                throw new IllegalArgumentException("MLFQ needs between 1 and " + MAX_LEVELS + " levels");
+            }
+            for (double quantum : quanta) {
+                if (!(quantum > 0)) {
+                    throw new IllegalArgumentException("The MLFQ quanta must be positive");
+                }
+            }
+            if (boostPeriod < 0) {
+                throw new IllegalArgumentException("The MLFQ boost period cannot be negative");
+            }
+            this.quanta = quanta.clone();
+            this.boostPeriod = boostPeriod;
+            this.nextBoost = boostPeriod > 0 ? boostPeriod : Double.POSITIVE_INFINITY;
+            this.registered = new boolean[1024];
+            this.next = new int[1024];
+            this.levels = new int[1024];
+            this.used = new double[1024];
+            this.epochs = new int[1024];
+        }
+
+        /**
+         * Start a new boost epoch if a boost is due
+         */
+        private void boostIfDue(double now) {
+            if (now >= nextBoost) {
+                nextBoost = (Math.floor(now / boostPeriod) + 1) * boostPeriod;
+                epoch++;
+            }
+        }
+
+        /**
+         * Apply the boosts that happened since the process state was last updated
+         */
+        private void refresh(int pid) {
+            if (epochs[pid] != epoch) {
+                epochs[pid] = epoch;
+                levels[pid] = 0;
+                used[pid] = 0;
+            }
+        }
+
+        private void register(int pid) {
+            if (pid >= registered.length) {
+                int capacity = Math.max(pid + 1, registered.length * 2);
+                registered = Arrays.copyOf(registered, capacity);
+                next = Arrays.copyOf(next, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+                used = Arrays.copyOf(used, capacity);
+                epochs = Arrays.copyOf(epochs, capacity);
+            }
+            if (!registered[pid]) {
+                // New process: top level, with its whole allotment
+                registered[pid] = true;
+                levels[pid] = 0;
+                used[pid] = 0;
+                epochs[pid] = epoch;
+            }
+        }
+    }
+
+    private final ProcessTable processes;
+    private final SharedState state;
+
+    /*
+     * One linked list of pids per level
+     */
+    private final int[] heads;
+    private final int[] tails;
+    private long nonEmptyLevels;
+    private int size;
+    /**
+     * Boost epoch of the lists of this queue
+     */
+    private int epoch;
+
+    /**
+     * @param processes   The processes of the simulation
+     * @param quanta      Quantum of each level, from the highest priority to the lowest
+     * @param boostPeriod Time between two priority boosts, 0 to never boost
+     */
+    public MlfqScheduler(ProcessTable processes, double[] quanta, double boostPeriod) {
+        this(processes, new SharedState(quanta, boostPeriod));
+    }
+
+    /**
+     * @param processes The processes of the simulation
+     * @param state     Settings and per-process state, possibly shared with the queues of other cores
+     */
+    public MlfqScheduler(ProcessTable processes, SharedState state) {
+        this.processes = processes;
+        this.state = state;
+        this.heads = new int[state.quanta.length];
+        this.tails = new int[state.quanta.length];
+        this.epoch = state.epoch;
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        boostIfDue(now);
+        state.register(pid);
+        state.refresh(pid);
+        append(state.levels[pid], pid);
+    }
+
+    @Override
+    public int poll(double now) {
+        boostIfDue(now);
+        if (nonEmptyLevels == 0) {
+            return ProcessTable.NONE;
+        }
+        int level = Long.numberOfTrailingZeros(nonEmptyLevels);
+        int pid = heads[level];
+        heads[level] = state.next[pid];
+        if (heads[level] == NONE) {
+            tails[level] = NONE;
+            nonEmptyLevels &= ~(1L << level);
+        }
+        size--;
+        // The process may have been spliced into a higher level by a boost
+        state.refresh(pid);
+        return pid;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        return Math.max(state.quanta[state.levels[pid]] - state.used[pid], EPSILON);
+    }
+
+    @Override
+    public void descheduled(int pid, double ran) {
+        state.refresh(pid);
+        state.used[pid] += ran;
+        if (state.used[pid] >= state.quanta[state.levels[pid]] - EPSILON) {
+            // Allotment exhausted: move down one level with a fresh allotment
+            if (state.levels[pid] < state.quanta.length - 1) {
+                state.levels[pid]++;
+            }
+            state.used[pid] = 0;
+        }
+        if (processes.getCpuRemaining(pid) <= EPSILON) {
+            // The process completes: forget it, its pid will be reused
+            state.registered[pid] = false;
+        }
+    }
+
+    /**
+     * Move every queued process to level 0 if a boost happened, keeping the order of the levels, in O(levels)
+     */
+    private void boostIfDue(double now) {
+        state.boostIfDue(now);
+        if (epoch == state.epoch) {
+            return;
+        }
+        epoch = state.epoch;
+        for (int level = 1; level < heads.length; level++) {
+            if (heads[level] == NONE) {
+                continue;
+            }
+            if (heads[0] == NONE) {
+                heads[0] = heads[level];
+            } else {
+                state.next[tails[0]] = heads[level];
+            }
+            tails[0] = tails[level];
+            heads[level] = NONE;
+            tails[level] = NONE;
+        }
+        if (heads[0] != NONE) {
+            nonEmptyLevels = 1L;
+        }
+    }
+
+    private void append(int level, int pid) {
+        state.next[pid] = NONE;
+        if (tails[level] == NONE) {
+            heads[level] = pid;
+            nonEmptyLevels |= 1L << level;
+        } else {
+            state.next[tails[level]] = pid;
+        }
+        tails[level] = pid;
+        size++;
+    }
+}
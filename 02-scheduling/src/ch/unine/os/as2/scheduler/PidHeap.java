@@ -0,0 +1,87 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of pids ordered by a key, then by a sequence number, stored in parallel arrays like the
+ * {@link ch.unine.os.as2.BinaryHeapEventQueue}, so comparisons do not follow references.
+ * <p/>
+ * The key of a process is given when it is added: it must not change while the process is in the heap.
+ */
+class PidHeap {
+    private double[] keys = new double[64];
+    private long[] sequences = new long[64];
+    private int[] pids = new int[64];
+    private int size;
+
+    void push(int pid, double key, long sequence) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            pids = Arrays.copyOf(pids, capacity);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(key, sequence, parent)) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, key, sequence, pid);
+    }
+
+    /**
+     * @return The pid with the smallest key, or {@link ProcessTable#NONE} if the heap is empty
+     */
+    int pop() {
+        if (size == 0) {
+            return ProcessTable.NONE;
+        }
+        int first = pids[0];
+        size--;
+        double key = keys[size];
+        long sequence = sequences[size];
+        int last = pids[size];
+        if (size > 0) {
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(keys[right], sequences[right], child)) {
+                    child = right;
+                }
+                if (before(key, sequence, child)) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            set(i, key, sequence, last);
+        }
+        return first;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean before(double key, long sequence, int slot) {
+        return key < keys[slot] || (key == keys[slot] && sequence < sequences[slot]);
+    }
+
+    private void move(int from, int to) {
+        set(to, keys[from], sequences[from], pids[from]);
+    }
+
+    private void set(int slot, double key, long sequence, int pid) {
+        keys[slot] = key;
+        sequences[slot] = sequence;
+        pids[slot] = pid;
+    }
+}
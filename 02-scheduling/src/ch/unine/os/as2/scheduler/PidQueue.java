@@ -0,0 +1,46 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * FIFO queue of pids in a circular array whose size is a power of two
+ */
+class PidQueue {
+    private int[] pids = new int[64];
+    private int head;
+    private int size;
+
+    void addLast(int pid) {
+        if (size == pids.length) {
+            grow();
+        }
+        pids[(head + size) & (pids.length - 1)] = pid;
+        size++;
+    }
+
+    /**
+     * @return The first pid, or {@link ProcessTable#NONE} if the queue is empty
+     */
+    int pollFirst() {
+        if (size == 0) {
+            return ProcessTable.NONE;
+        }
+        int pid = pids[head];
+        head = (head + 1) & (pids.length - 1);
+        size--;
+        return pid;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] larger = new int[pids.length * 2];
+        for (int i = 0; i < size; i++) {
+            larger[i] = pids[(head + i) & (pids.length - 1)];
+        }
+        pids = larger;
+        head = 0;
+    }
+}
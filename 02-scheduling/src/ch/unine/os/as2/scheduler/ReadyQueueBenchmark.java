@@ -0,0 +1,199 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.EventQueue;
+import ch.unine.os.as2.ProcessTable;
+import ch.unine.os.as2.Simulator;
+import ch.unine.os.as2.Workload;
+import ch.unine.os.as2.stats.RunningStatistics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compares priority queue implementations as the ready queue of the SJF algorithms, on the operations of real
+ * simulations, as {@link ch.unine.os.as2.EventQueueBenchmark} does for the future event list.
+ * <p/>
+ * Each workload is simulated once on one core, recording every process added to the ready queue with its key (its
+ * burst, or its predicted burst for SJFA) and every poll. The log is then replayed against the {@link PidHeap} of
+ * the schedulers and against the {@link EventQueue} implementations, the key standing for the time, several times
+ * after a warm-up. Replays check that every implementation polls the processes in the same order as the PidHeap.
+ * <p/>
+ * Unlike event times, ready queue keys are not monotonic: a short burst may become ready after a longer one was
+ * dispatched. The calendar queue and the timing wheel, which only accept events after the last one removed, are
+ * then reported as not applicable. FCFS and RR use a FIFO ({@link PidQueue}), whose operations take constant time.
+ * <p/>
+ * Usage: ReadyQueueBenchmark [directory of the .run files] [iterations]
+ */
+public class ReadyQueueBenchmark {
+
+    /**
+     * Workloads, scales and algorithms whose ready queue operations are recorded
+     */
+    private static final String[][] MIXES = {
+            {"high_load", "100", "SJF"},
+            {"high_load", "100", "SJFA 0.5"},
+            {"mixed_load", "20000", "SJF"},
+            {"mixed_load", "20000", "SJFA 0.5"},
+    };
+    private static final int WARM_UP = 2;
+
+    /**
+     * Ready queue logging the operations it receives: the key of each process added, NaN for each poll
+     */
+    private static class RecordingScheduler implements Scheduler {
+        private final Scheduler queue;
+        private final ProcessTable processes;
+        private final boolean estimated;
+        private double[] log = new double[1 << 16];
+        private int length;
+        private int maxSize;
+        private boolean monotonic = true;
+        private double lastPolled = Double.NEGATIVE_INFINITY;
+
+        RecordingScheduler(Scheduler queue, ProcessTable processes, boolean estimated) {
+            this.queue = queue;
+            this.processes = processes;
+            this.estimated = estimated;
+        }
+
+        @Override
+        public void add(int pid, double now) {
+            queue.add(pid, now);
+            // SJFA sets the estimate of a new process when it is added
+            double key = estimated ? processes.getEstimate(pid) : processes.getBurstRemaining(pid);
+            monotonic &= key >= lastPolled;
+            record(key);
+            maxSize = Math.max(maxSize, queue.size());
+        }
+
+        @Override
+        public int poll(double now) {
+            int pid = queue.poll(now);
+            if (pid != ProcessTable.NONE) {
+                lastPolled = estimated ? processes.getEstimate(pid) : processes.getBurstRemaining(pid);
+                record(Double.NaN);
+            }
+            return pid;
+        }
+
+        private void record(double operation) {
+            if (length == log.length) {
+                log = Arrays.copyOf(log, length * 2);
+            }
+            log[length++] = operation;
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public double timeSlice(int pid) {
+            return queue.timeSlice(pid);
+        }
+
+        @Override
+        public void descheduled(int pid, double ran) {
+            queue.descheduled(pid, ran);
+        }
+
+        @Override
+        public void burstCompleted(int pid) {
+            queue.burstCompleted(pid);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%-40s %-14s %10s %10s %10s%n", "operations", "queue", "ns/op", "sd", "max size");
+        for (String[] mix : MIXES) {
+            Workload workload = Workload.parse(directory.resolve(mix[0] + ".run")).scaled(Integer.parseInt(mix[1]));
+            Algorithm algorithm = Algorithm.parse(mix[2]);
+            RecordingScheduler[] recorder = new RecordingScheduler[1];
+            new Simulator(workload.withMachine(workload.getMachine().withCores(1)), algorithm, workload.getSeed(),
+                    EventQueue.Implementation.BINARY_HEAP.create(), (queue, processes) ->
+                    recorder[0] = new RecordingScheduler(queue, processes, mix[2].startsWith("SJFA"))).run();
+            double[] log = Arrays.copyOf(recorder[0].log, recorder[0].length);
+            measure(String.format(Locale.ROOT, "%s x%s %s", mix[0], mix[1], mix[2]), log, recorder[0].maxSize,
+                    recorder[0].monotonic, iterations);
+        }
+    }
+
+    private static void measure(String name, double[] log, int maxSize, boolean monotonic, int iterations) {
+        long reference = replay(new PidHeap(), log);
+        RunningStatistics heap = new RunningStatistics();
+        for (int i = 0; i < WARM_UP + iterations; i++) {
+            PidHeap queue = new PidHeap();
+            long start = System.nanoTime();
+            replay(queue, log);
+            if (i >= WARM_UP) {
+                heap.add((double) (System.nanoTime() - start) / log.length);
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-40s %-14s %10.1f %10.1f %10d%n", name, "PID_HEAP",
+                heap.getMean(), heap.getStandardDeviation(), maxSize);
+
+        for (EventQueue.Implementation implementation : EventQueue.Implementation.values()) {
+            boolean monotonicOnly = implementation == EventQueue.Implementation.CALENDAR
+                    || implementation == EventQueue.Implementation.TIMING_WHEEL;
+            if (monotonicOnly && !monotonic) {
+                System.out.printf(Locale.ROOT, "%-40s %-14s %10s%n", name, implementation, "n/a");
+                continue;
+            }
+            RunningStatistics nanosPerOperation = new RunningStatistics();
+            for (int i = 0; i < WARM_UP + iterations; i++) {
+                EventQueue queue = implementation.create();
+                long start = System.nanoTime();
+                long checksum = replay(queue, log);
+                long elapsed = System.nanoTime() - start;
+                if (checksum != reference) {
+                    throw new IllegalStateException(implementation + " polls the processes in another order");
+                }
+                if (i >= WARM_UP) {
+                    nanosPerOperation.add((double) elapsed / log.length);
+                }
+            }
+            System.out.printf(Locale.ROOT, "%-40s %-14s %10.1f %10.1f %10d%n", name, implementation,
+                    nanosPerOperation.getMean(), nanosPerOperation.getStandardDeviation(), maxSize);
+        }
+    }
+
+    /**
+     * Replay a log of operations, each process being identified by its position in the log, and ties being broken
+     * in the order of the log as the ready sequence of the processes does
+     *
+     * @return A checksum of the order in which the processes were polled
+     */
+    private static long replay(PidHeap queue, double[] log) {
+        long checksum = 0;
+        for (int i = 0; i < log.length; i++) {
+            double operation = log[i];
+            if (Double.isNaN(operation)) {
+                checksum = checksum * 31 + queue.pop();
+            } else {
+                queue.push(i, operation, i);
+            }
+        }
+        return checksum;
+    }
+
+    private static long replay(EventQueue queue, double[] log) {
+        long checksum = 0;
+        for (int i = 0; i < log.length; i++) {
+            double operation = log[i];
+            if (Double.isNaN(operation)) {
+                checksum = checksum * 31 + queue.peekPayload();
+                queue.remove();
+            } else {
+                queue.add(operation, 0, i);
+            }
+        }
+        return checksum;
+    }
+}
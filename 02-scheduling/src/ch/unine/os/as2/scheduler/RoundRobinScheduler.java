@@ -0,0 +1,24 @@
+package ch.unine.os.as2.scheduler;
+
+/**
+ * Round robin: FCFS order, but a process is preempted after running for one quantum
+ * and goes back to the end of the ready queue
+ */
+public class RoundRobinScheduler extends FcfsScheduler {
+    private final double quantum;
+
+    /**
+     * @param quantum The time slice
+     */
+    public RoundRobinScheduler(double quantum) {
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("The RR quantum must be positive");
+        }
+        this.quantum = quantum;
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        return quantum;
+    }
+}
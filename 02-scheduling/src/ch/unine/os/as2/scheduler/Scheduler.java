@@ -0,0 +1,76 @@
+package ch.unine.os.as2.scheduler;
+
+/**
+ * Ready queue of a CPU scheduling algorithm.
+ * <p/>
+ * The simulator adds a process when it becomes ready (arrival, end of I/O or preemption) and polls the
+ * next process to run whenever the CPU becomes free. On a multi-core machine, each core has its own scheduler
+ * and processes may migrate from one to another.
+ * <p/>
+ * Processes are pids of the {@link ch.unine.os.as2.ProcessTable} of the simulation, where schedulers read their
+ * state. A pid is reused once its process has completed, which schedulers see in {@link #descheduled}.
+ */
+public interface Scheduler {
+
+    /**
+     * A process becomes ready to run
+     *
+     * @param pid The ready process
+     * @param now The current simulated time
+     */
+    void add(int pid, double now);
+
+    /**
+     * Choose the next process to run and remove it from the ready queue
+     *
+     * @param now The current simulated time
+     * @return The chosen process, or {@link ch.unine.os.as2.ProcessTable#NONE} if no process is ready
+     */
+    int poll(double now);
+
+    /**
+     * Remove a ready process to migrate it to another core
+     *
+     * @param now The current simulated time
+     * @return The process to migrate, or {@link ch.unine.os.as2.ProcessTable#NONE} if no process is ready;
+     * by default the one that would run next
+     */
+    default int steal(double now) {
+        return poll(now);
+    }
+
+    /**
+     * @return The number of ready processes
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @param pid The process about to be dispatched
+     * @return How long the process may run before being preempted, infinite for non-preemptive algorithms
+     */
+    default double timeSlice(int pid) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Called when a process leaves the CPU, because its burst or its time slice ended,
+     * before it is added back to the ready queue, starts its I/O burst or completes
+     *
+     * @param pid The process that was running
+     * @param ran How long it ran since it was dispatched
+     */
+    default void descheduled(int pid, double ran) {
+    }
+
+    /**
+     * Called when a process finishes a CPU burst, before it starts its I/O burst or completes
+     *
+     * @param pid The process, whose burst length is still available
+     */
+    default void burstCompleted(int pid) {
+    }
+}
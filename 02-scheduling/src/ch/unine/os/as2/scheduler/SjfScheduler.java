@@ -0,0 +1,42 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Shortest job first: the process with the shortest next CPU burst runs first, without preemption.
+ * The burst length is known exactly, which makes this algorithm a theoretical reference.
+ */
+public class SjfScheduler implements Scheduler {
+    protected final ProcessTable processes;
+    private final PidHeap queue = new PidHeap();
+
+    /**
+     * @param processes The processes of the simulation
+     */
+    public SjfScheduler(ProcessTable processes) {
+        this.processes = processes;
+    }
+
+    /**
+     * @param pid A process becoming ready
+     * @return What orders the processes, smallest first; ties are broken in FIFO order
+     */
+    protected double key(int pid) {
+        return processes.getBurstRemaining(pid);
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        queue.push(pid, key(pid), processes.getReadySequence(pid));
+    }
+
+    @Override
+    public int poll(double now) {
+        return queue.pop();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
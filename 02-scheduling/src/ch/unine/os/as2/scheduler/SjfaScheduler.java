@@ -0,0 +1,45 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+/**
+ * Shortest job first with approximation: the next CPU burst of each process is predicted by
+ * exponential averaging of its previous bursts, tau(n+1) = alpha * t(n) + (1 - alpha) * tau(n).
+ */
+public class SjfaScheduler extends SjfScheduler {
+    private final double alpha;
+    private final double initialEstimate;
+
+    /**
+     * @param processes       The processes of the simulation
+     * @param alpha           Weight of the last burst in the prediction, between 0 and 1
+     * @param initialEstimate Prediction for the first burst of a process
+     */
+    public SjfaScheduler(ProcessTable processes, double alpha, double initialEstimate) {
+        super(processes);
+        if (alpha < 0 || alpha > 1) {
+            throw new IllegalArgumentException("The SJFA alpha must be between 0 and 1");
+        }
+        this.alpha = alpha;
+        this.initialEstimate = initialEstimate;
+    }
+
+    @Override
+    protected double key(int pid) {
+        return processes.getEstimate(pid);
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        // A process without history gets the initial estimate
+        if (Double.isNaN(processes.getEstimate(pid))) {
+            processes.setEstimate(pid, initialEstimate);
+        }
+        super.add(pid, now);
+    }
+
+    @Override
+    public void burstCompleted(int pid) {
+        processes.setEstimate(pid, alpha * processes.getBurstLength(pid) + (1 - alpha) * processes.getEstimate(pid));
+    }
+}
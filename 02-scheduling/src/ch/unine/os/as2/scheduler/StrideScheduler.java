@@ -0,0 +1,138 @@
+package ch.unine.os.as2.scheduler;
+
+import ch.unine.os.as2.ProcessTable;
+
+import java.util.Arrays;
+
+/**
+ * Stride scheduling, the deterministic counterpart of lottery scheduling.
+ * <p/>
+ * Each process has a stride inversely proportional to its tickets (its basepriority) and a pass value. The ready
+ * process with the smallest pass runs for one quantum, then its pass advances by its stride, in proportion of
+ * the part of the quantum it used. Ready processes are kept in a binary heap of pids ordered by pass, stored in
+ * parallel arrays, so comparisons do not follow references.
+ * <p/>
+ * The queue also advances a global pass, at the rate of one stride of all its tickets per quantum. A process
+ * leaving the queue (to do I/O, or to migrate) remembers how far its pass was from the global pass, and gets
+ * back the same distance when it joins a queue again. A new process starts one stride after the global pass.
+ */
+public class StrideScheduler implements Scheduler {
+
+    /**
+     * Stride of a process holding one ticket
+     */
+    private static final double STRIDE1 = 1 << 20;
+
+    /**
+     * Per-process pass values, shared by the queues of all the cores
+     */
+    public static class SharedState {
+        private double[] passes = new double[1024];
+        /**
+         * Distance between the pass and the global pass of the queue, while out of a queue
+         */
+        private double[] remains = new double[1024];
+        private boolean[] known = new boolean[1024];
+
+        private void ensureCapacity(int pid) {
+            if (pid >= passes.length) {
+                int capacity = Math.max(pid + 1, passes.length * 2);
+                passes = Arrays.copyOf(passes, capacity);
+                remains = Arrays.copyOf(remains, capacity);
+                known = Arrays.copyOf(known, capacity);
+            }
+        }
+    }
+
+    private final ProcessTable processes;
+    private final SharedState state;
+    private final double quantum;
+    /**
+     * Ready processes, ordered by pass then by ready sequence
+     */
+    private final PidHeap heap = new PidHeap();
+    private double globalPass;
+    /**
+     * Tickets of the ready processes and of the process running from this queue
+     */
+    private long activeTickets;
+
+    /**
+     * @param processes The processes of the simulation
+     * @param quantum   The time slice
+     */
+    public StrideScheduler(ProcessTable processes, double quantum) {
+        this(processes, new SharedState(), quantum);
+    }
+
+    /**
+     * @param processes The processes of the simulation
+     * @param state     Per-process state, possibly shared with the queues of other cores
+     * @param quantum   The time slice
+     */
+    public StrideScheduler(ProcessTable processes, SharedState state, double quantum) {
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("The stride quantum must be positive");
+        }
+        this.processes = processes;
+        this.state = state;
+        this.quantum = quantum;
+    }
+
+    @Override
+    public void add(int pid, double now) {
+        state.ensureCapacity(pid);
+        if (!state.known[pid]) {
+            state.known[pid] = true;
+            state.remains[pid] = stride(pid);
+        }
+        state.passes[pid] = globalPass + state.remains[pid];
+        heap.push(pid, state.passes[pid], processes.getReadySequence(pid));
+        activeTickets += processes.getBasePriority(pid);
+    }
+
+    @Override
+    public int poll(double now) {
+        // The process stays active while it runs, until descheduled
+        return heap.pop();
+    }
+
+    @Override
+    public int steal(double now) {
+        int pid = heap.pop();
+        if (pid != ProcessTable.NONE) {
+            leave(pid);
+        }
+        return pid;
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public double timeSlice(int pid) {
+        return quantum;
+    }
+
+    @Override
+    public void descheduled(int pid, double ran) {
+        double quanta = ran / quantum;
+        globalPass += quanta * STRIDE1 / activeTickets;
+        state.passes[pid] += quanta * stride(pid);
+        leave(pid);
+        if (processes.getCpuRemaining(pid) <= 1e-9) {
+            state.known[pid] = false;
+        }
+    }
+
+    private void leave(int pid) {
+        state.remains[pid] = state.passes[pid] - globalPass;
+        activeTickets -= processes.getBasePriority(pid);
+    }
+
+    private double stride(int pid) {
+        return STRIDE1 / processes.getBasePriority(pid);
+    }
+}
@@ -0,0 +1,125 @@
+package ch.unine.os.as2.stats;
+
+/**
+ * Turnaround and waiting time statistics of a class of processes (one process block of a workload, or all of them),
+ * and lateness statistics of the processes with a deadline
+ */
+public class ClassStatistics {
+
+    /**
+     * Relative accuracy of the quantiles
+     */
+    public static final double QUANTILE_ACCURACY = 0.01;
+
+    private final String name;
+    private final RunningStatistics turnaround;
+    private final RunningStatistics waiting;
+    private final QuantileSketch turnaroundQuantiles;
+    private final QuantileSketch waitingQuantiles;
+    private final RunningStatistics lateness;
+    private final LatenessHistogram latenessHistogram;
+
+    /**
+     * @param name Label of the class of processes
+     */
+    public ClassStatistics(String name) {
+        this(name, new RunningStatistics(), new RunningStatistics(),
+                new QuantileSketch(QUANTILE_ACCURACY), new QuantileSketch(QUANTILE_ACCURACY),
+                new RunningStatistics(), new LatenessHistogram());
+    }
+
+    private ClassStatistics(String name, RunningStatistics turnaround, RunningStatistics waiting,
+                            QuantileSketch turnaroundQuantiles, QuantileSketch waitingQuantiles,
+                            RunningStatistics lateness, LatenessHistogram latenessHistogram) {
+        this.name = name;
+        this.turnaround = turnaround;
+        this.waiting = waiting;
+        this.turnaroundQuantiles = turnaroundQuantiles;
+        this.waitingQuantiles = waitingQuantiles;
+        this.lateness = lateness;
+        this.latenessHistogram = latenessHistogram;
+    }
+
+    /**
+     * Account for a process that completed
+     *
+     * @param turnaroundTime Time between its arrival and its completion
+     * @param waitingTime    Time it spent in the ready queue
+     */
+    public void record(double turnaroundTime, double waitingTime) {
+        turnaround.add(turnaroundTime);
+        waiting.add(waitingTime);
+        turnaroundQuantiles.add(turnaroundTime);
+        waitingQuantiles.add(waitingTime);
+    }
+
+    /**
+     * Account for a process with a deadline that completed, in addition to {@link #record(double, double)}
+     *
+     * @param latenessTime Completion time minus deadline, negative if the deadline was met
+     */
+    public void recordLateness(double latenessTime) {
+        lateness.add(latenessTime);
+        latenessHistogram.record(latenessTime);
+    }
+
+    /**
+     * Add the processes of other statistics to these ones
+     *
+     * @param other The statistics to merge
+     */
+    public void merge(ClassStatistics other) {
+        turnaround.merge(other.turnaround);
+        waiting.merge(other.waiting);
+        turnaroundQuantiles.merge(other.turnaroundQuantiles);
+        waitingQuantiles.merge(other.waitingQuantiles);
+        lateness.merge(other.lateness);
+        latenessHistogram.merge(other.latenessHistogram);
+    }
+
+    /**
+     * @return An independent copy of these statistics
+     */
+    public ClassStatistics copy() {
+        return new ClassStatistics(name, turnaround.copy(), waiting.copy(),
+                turnaroundQuantiles.copy(), waitingQuantiles.copy(), lateness.copy(), latenessHistogram.copy());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Number of processes that completed
+     */
+    public long getCompleted() {
+        return turnaround.getCount();
+    }
+
+    public RunningStatistics getTurnaround() {
+        return turnaround;
+    }
+
+    public RunningStatistics getWaiting() {
+        return waiting;
+    }
+
+    public QuantileSketch getTurnaroundQuantiles() {
+        return turnaroundQuantiles;
+    }
+
+    public QuantileSketch getWaitingQuantiles() {
+        return waitingQuantiles;
+    }
+
+    /**
+     * @return Lateness of the processes with a deadline
+     */
+    public RunningStatistics getLateness() {
+        return lateness;
+    }
+
+    public LatenessHistogram getLatenessHistogram() {
+        return latenessHistogram;
+    }
+}
@@ -0,0 +1,76 @@
+package ch.unine.os.as2.stats;
+
+/**
+ * Requests served by an I/O device: their waiting time in the device queue, the distance moved by the head and
+ * the time the device was busy
+ */
+public class DeviceStatistics {
+    private final String name;
+    private final RunningStatistics waiting;
+    private final RunningStatistics seekDistance;
+    private double busyTime;
+
+    /**
+     * @param name Name of the device
+     */
+    public DeviceStatistics(String name) {
+        this(name, new RunningStatistics(), new RunningStatistics(), 0);
+    }
+
+    private DeviceStatistics(String name, RunningStatistics waiting, RunningStatistics seekDistance,
+                             double busyTime) {
+        this.name = name;
+        this.waiting = waiting;
+        this.seekDistance = seekDistance;
+        this.busyTime = busyTime;
+    }
+
+    /**
+     * Account for a request whose service starts
+     *
+     * @param waitingTime Time the request spent in the queue
+     * @param distance    Cylinders crossed by the head to reach it
+     * @param serviceTime Seek and transfer time of the request
+     */
+    public void record(double waitingTime, int distance, double serviceTime) {
+        waiting.add(waitingTime);
+        seekDistance.add(distance);
+        busyTime += serviceTime;
+    }
+
+    /**
+     * @return An independent copy of these statistics
+     */
+    public DeviceStatistics copy() {
+        return new DeviceStatistics(name, waiting.copy(), seekDistance.copy(), busyTime);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return waiting.getCount();
+    }
+
+    /**
+     * @return Time spent by the requests in the device queue
+     */
+    public RunningStatistics getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return Cylinders crossed by the head per request
+     */
+    public RunningStatistics getSeekDistance() {
+        return seekDistance;
+    }
+
+    /**
+     * @return Time during which the device was serving requests, including those still in service
+     */
+    public double getBusyTime() {
+        return busyTime;
+    }
+}
@@ -0,0 +1,162 @@
+package ch.unine.os.as2.stats;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Histogram of the lateness of processes with a deadline: completion time minus deadline.
+ * <p/>
+ * Processes that meet their deadline (lateness of zero or less) are only counted. The tardiness of the others is
+ * counted in power-of-two buckets: the first bucket holds tardiness up to 2^{@link #MIN_EXPONENT}, and bucket k
+ * the tardiness in (2^(k-1+MIN_EXPONENT), 2^(k+MIN_EXPONENT)]. The last bucket also holds anything larger.
+ */
+public class LatenessHistogram {
+
+    /**
+     * Exponent of the upper bound of the first bucket
+     */
+    public static final int MIN_EXPONENT = -6;
+    public static final int BUCKETS = 48;
+
+    private long onTime;
+    private final long[] buckets;
+
+    public LatenessHistogram() {
+        this(0, new long[BUCKETS]);
+    }
+
+    private LatenessHistogram(long onTime, long[] buckets) {
+        this.onTime = onTime;
+        this.buckets = buckets;
+    }
+
+    /**
+     * @param lateness Completion time minus deadline of a process
+     */
+    public void record(double lateness) {
+        if (!(lateness > 0)) {
+            onTime++;
+            return;
+        }
+        buckets[bucket(lateness)]++;
+    }
+
+    private static int bucket(double tardiness) {
+        int exponent = Math.getExponent(tardiness);
+        // Exact powers of two belong to the bucket they bound
+        if (tardiness == Math.scalb(1.0, exponent)) {
+            exponent--;
+        }
+        return Math.max(0, Math.min(BUCKETS - 1, exponent + 1 - MIN_EXPONENT));
+    }
+
+    /**
+     * Add the counts of another histogram to this one
+     */
+    public void merge(LatenessHistogram other) {
+        onTime += other.onTime;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += other.buckets[i];
+        }
+    }
+
+    public LatenessHistogram copy() {
+        return new LatenessHistogram(onTime, buckets.clone());
+    }
+
+    /**
+     * @return Number of processes with a deadline
+     */
+    public long getCount() {
+        return onTime + getMissed();
+    }
+
+    public long getOnTime() {
+        return onTime;
+    }
+
+    /**
+     * @return Number of processes that completed after their deadline
+     */
+    public long getMissed() {
+        long missed = 0;
+        for (long count : buckets) {
+            missed += count;
+        }
+        return missed;
+    }
+
+    /**
+     * @return Fraction of the processes with a deadline that missed it, 0 if there is none
+     */
+    public double getMissRatio() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getMissed() / count;
+    }
+
+    /**
+     * @return The number of late processes in each bucket
+     */
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    /**
+     * @param bucket A bucket number
+     * @return The largest tardiness counted in this bucket
+     */
+    public static double upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Double.POSITIVE_INFINITY : Math.scalb(1.0, bucket + MIN_EXPONENT);
+    }
+
+    /**
+     * @param q A quantile between 0 and 1
+     * @return Upper bound of the tardiness of the late processes at this quantile, 0 if no process was late
+     */
+    public double tardinessQuantile(double q) {
+        long missed = getMissed();
+        if (missed == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * missed);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(rank, 1)) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * @return The non-empty buckets as a text histogram, one line per bucket
+     */
+    public String toText() {
+        long largest = onTime;
+        int first = BUCKETS;
+        int last = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            largest = Math.max(largest, buckets[i]);
+            if (buckets[i] > 0) {
+                first = Math.min(first, i);
+                last = i;
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        appendLine(builder, "on time", onTime, largest);
+        for (int i = first; i <= last; i++) {
+            String label = i == BUCKETS - 1 ? "later"
+                    : String.format(Locale.ROOT, upperBound(i) >= 1 ? "<= %.0f" : "<= %.4g", upperBound(i));
+            appendLine(builder, label, buckets[i], largest);
+        }
+        return builder.toString();
+    }
+
+    private static void appendLine(StringBuilder builder, String label, long count, long largest) {
+        int width = largest == 0 ? 0 : (int) Math.round(50.0 * count / largest);
+        char[] bar = new char[width];
+        Arrays.fill(bar, '#');
+        builder.append(String.format(Locale.ROOT, "%-14s %10d %s%n", label, count, new String(bar)));
+    }
+}
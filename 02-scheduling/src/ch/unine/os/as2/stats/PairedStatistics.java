@@ -0,0 +1,147 @@
+package ch.unine.os.as2.stats;
+
+/**
+ * Statistics of the differences y - x between pairs of observations, such as the value of a metric under two
+ * algorithms simulated with the same random numbers, and Student t confidence intervals of their mean.
+ * <p/>
+ * When x and y are positively correlated, the differences vary less than each value does, and the paired
+ * interval is narrower than the one computed from x and y as independent samples. The ratio of the two
+ * variances is the factor by which pairing divides the number of replications needed for a given precision.
+ */
+public class PairedStatistics {
+    private final RunningStatistics x = new RunningStatistics();
+    private final RunningStatistics y = new RunningStatistics();
+    private final RunningStatistics differences = new RunningStatistics();
+
+    /**
+     * Add a pair of observations
+     *
+     * @param x The observation of the reference
+     * @param y The paired observation compared to it
+     */
+    public void add(double x, double y) {
+        this.x.add(x);
+        this.y.add(y);
+        differences.add(y - x);
+    }
+
+    public long getCount() {
+        return differences.getCount();
+    }
+
+    /**
+     * @return The mean of the differences y - x
+     */
+    public double getMeanDifference() {
+        return differences.getMean();
+    }
+
+    public RunningStatistics getDifferences() {
+        return differences;
+    }
+
+    /**
+     * @param confidence Confidence level, e.g. 0.95
+     * @return Half the width of the confidence interval of the mean difference, NaN with less than two pairs
+     */
+    public double halfWidth(double confidence) {
+        long n = getCount();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        return studentQuantile(0.5 + confidence / 2, n - 1) * Math.sqrt(differences.getVariance() / n);
+    }
+
+    /**
+     * @param confidence Confidence level, e.g. 0.95
+     * @return Half the width of the confidence interval of the difference of the means, if x and y were
+     * independent samples, NaN with less than two pairs
+     */
+    public double unpairedHalfWidth(double confidence) {
+        long n = getCount();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        return studentQuantile(0.5 + confidence / 2, 2 * n - 2)
+                * Math.sqrt((x.getVariance() + y.getVariance()) / n);
+    }
+
+    /**
+     * @return The variance of y - x for independent samples over the variance of the paired differences,
+     * infinite if the differences do not vary
+     */
+    public double getVarianceReduction() {
+        double paired = differences.getVariance();
+        double unpaired = x.getVariance() + y.getVariance();
+        return paired > 0 ? unpaired / paired : unpaired > 0 ? Double.POSITIVE_INFINITY : 1;
+    }
+
+    /**
+     * Quantile of the Student t distribution: exact for 1 and 2 degrees of freedom, Cornish-Fisher expansion
+     * around the normal quantile beyond. At 3 degrees of freedom, the error is 0.15% for 95% intervals and 1% for
+     * 99% intervals; it decreases quickly with more degrees of freedom.
+     *
+     * @param p                Probability, between 0 and 1
+     * @param degreesOfFreedom Degrees of freedom, at least 1
+     * @return The value t such that P(T &lt;= t) = p
+     */
+    public static double studentQuantile(double p, long degreesOfFreedom) {
+        if (!(p > 0 && p < 1)) {
+            throw new IllegalArgumentException("The probability must be between 0 and 1, got " + p);
+        }
+        if (degreesOfFreedom < 1) {
+            throw new IllegalArgumentException("At least one degree of freedom is needed");
+        }
+        if (degreesOfFreedom == 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (degreesOfFreedom == 2) {
+            return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+        }
+        double n = degreesOfFreedom;
+        double z = normalQuantile(p);
+        double z2 = z * z;
+        double g1 = (z2 + 1) * z / 4;
+        double g2 = ((5 * z2 + 16) * z2 + 3) * z / 96;
+        double g3 = (((3 * z2 + 19) * z2 + 17) * z2 - 15) * z / 384;
+        double g4 = ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945) * z / 92160;
+        return z + (g1 + (g2 + (g3 + g4 / n) / n) / n) / n;
+    }
+
+    /*
+     * Coefficients of Acklam's rational approximations of the normal quantile, relative error below 1.2e-9
+     */
+    private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+            6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+            3.754408661907416e+00};
+    private static final double P_LOW = 0.02425;
+
+    /**
+     * @param p Probability, between 0 and 1
+     * @return The value z such that P(Z &lt;= z) = p for a standard normal Z
+     */
+    public static double normalQuantile(double p) {
+        if (p < P_LOW) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return tail(q);
+        }
+        if (p > 1 - P_LOW) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -tail(q);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+                / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+    }
+
+    private static double tail(double q) {
+        return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+    }
+}
@@ -0,0 +1,171 @@
+package ch.unine.os.as2.stats;
+
+/**
+ * Streaming quantile estimator with bounded relative error, on the model of DDSketch.
+ * <p/>
+ * Positive values are counted in logarithmic buckets: bucket i holds the values in (gamma^(i-1), gamma^i],
+ * with gamma = (1 + a) / (1 - a). Returning the middle of the bucket containing the requested rank guarantees
+ * a relative error of at most a. Values below {@link #MIN_VALUE} (including 0, a common waiting time) are
+ * counted apart. Memory is bounded: past {@link #MAX_BUCKETS} buckets, the lowest buckets are collapsed,
+ * which only degrades the accuracy of the lowest quantiles.
+ */
+public class QuantileSketch {
+
+    /**
+     * Values below this one are treated as zero
+     */
+    public static final double MIN_VALUE = 1e-6;
+    /**
+     * Maximal number of buckets of a sketch
+     */
+    public static final int MAX_BUCKETS = 4096;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    /**
+     * Counts of the buckets [offset, offset + counts.length)
+     */
+    private long[] counts;
+    private int offset;
+    private boolean empty = true;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy Maximal relative error of the quantiles, e.g. 0.01 for 1%
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("The relative accuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.counts = new long[64];
+    }
+
+    /**
+     * Add a value to the sketch. Negative values are treated as zero.
+     *
+     * @param value The new value
+     */
+    public void add(double value) {
+        count++;
+        if (!(value >= MIN_VALUE)) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        // slot() may replace the array, so it must be called before reading the field
+        int slot = slot(index);
+        counts[slot]++;
+    }
+
+    /**
+     * Estimate a quantile
+     *
+     * @param q The quantile, between 0 and 1
+     * @return The estimated value, or NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, q)) * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        // Unreachable unless the counts overflowed
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    /**
+     * Add all the values of another sketch with the same accuracy to this one
+     *
+     * @param other The sketch to merge
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracies");
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int slot = slot(other.offset + i);
+                counts[slot] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * @return An independent copy of this sketch
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(relativeAccuracy);
+        copy.counts = counts.clone();
+        copy.offset = offset;
+        copy.empty = empty;
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @return The position in the counts array of a bucket, growing or collapsing the array if needed
+     */
+    private int slot(int index) {
+        if (empty) {
+            offset = index - counts.length / 2;
+            empty = false;
+        }
+        if (index < offset || index >= offset + counts.length) {
+            resize(index);
+        }
+        return Math.max(index, offset) - offset;
+    }
+
+    private void resize(int index) {
+        int low = Math.min(offset, index);
+        int high = Math.max(offset + counts.length - 1, index);
+        int needed = high - low + 1;
+        if (needed > MAX_BUCKETS) {
+            // Collapse the lowest buckets into the first one kept
+            int newOffset = high - MAX_BUCKETS + 1;
+            long[] collapsed = new long[MAX_BUCKETS];
+            for (int i = 0; i < counts.length; i++) {
+                int bucket = Math.max(offset + i, newOffset);
+                if (bucket - newOffset < MAX_BUCKETS) {
+                    collapsed[bucket - newOffset] += counts[i];
+                }
+            }
+            counts = collapsed;
+            offset = newOffset;
+            return;
+        }
+        int capacity = Math.min(MAX_BUCKETS, Math.max(needed, counts.length * 2));
+        // Keep some room on the side that grew
+        int newOffset = index < offset ? high - capacity + 1 : low;
+        long[] grown = new long[capacity];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.unine.os.as2.stats;
+
+/**
+ * Count, mean, variance, minimum and maximum of a stream of values, in constant memory.
+ * <p/>
+ * The variance is updated with Welford's algorithm, which stays accurate when the values are large compared
+ * to their spread (turnaround times of long runs), unlike the sum of squares.
+ */
+public class RunningStatistics {
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public RunningStatistics() {
+    }
+
+    private RunningStatistics(RunningStatistics other) {
+        this.count = other.count;
+        this.mean = other.mean;
+        this.m2 = other.m2;
+        this.min = other.min;
+        this.max = other.max;
+    }
+
+    /**
+     * Add a value to the statistics
+     *
+     * @param value The new value
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Add all the values of other statistics to these ones (parallel variant of Welford's algorithm)
+     *
+     * @param other The statistics to merge
+     */
+    public void merge(RunningStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return An independent copy of these statistics
+     */
+    public RunningStatistics copy() {
+        return new RunningStatistics(this);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return The sample variance (0 with less than two values)
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return The smallest value, or NaN if there is none
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return The largest value, or NaN if there is none
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+}
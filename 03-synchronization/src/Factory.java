@@ -12,55 +12,130 @@
  * Objects instances of Factory represent a factory with initially two workshops and 
  * two stocks: initial stock of 10 items and empty final stock. Workshops are in charge
  * of transforming from the former to the latter.
+ *
+ * The factory is built as a Pipeline of two stages of two workshops; see Pipeline for
+ * other production lines.
  */
 class Factory {
     public static final int NB_ITEMS_TO_TRANSFORM = 10000;
 	/**
 	 * Stock of items to transform
 	 */
-    Stock stockInput = new Stock("input", NB_ITEMS_TO_TRANSFORM);
+    Stock stockInput;
     /**
 	 * Intermediate stock of items
 	 */
-    Stock stockIntermediate = new Stock("intermediate", 0, 1);
+    Stock stockIntermediate;
     /**
      * Stock of final (transformed) items
      */
-    Stock stockOutput = new Stock("output", 0);
+    Stock stockOutput;
     /**
      * Workshops for the transformations
      */
-    Workshop workshop1 = new Workshop(stockInput, stockIntermediate, NB_ITEMS_TO_TRANSFORM / 2);
-    Workshop workshop2 = new Workshop(stockInput, stockIntermediate, NB_ITEMS_TO_TRANSFORM / 2);
-    Workshop workshop3 = new Workshop(stockIntermediate, stockOutput, NB_ITEMS_TO_TRANSFORM / 2);
-    Workshop workshop4 = new Workshop(stockIntermediate, stockOutput, NB_ITEMS_TO_TRANSFORM / 2);
+    Workshop workshop1;
+    Workshop workshop2;
+    Workshop workshop3;
+    Workshop workshop4;
+    /**
+     * The stocks and workshops above, wired as a two-stage pipeline
+     */
+    private final Pipeline pipeline;
+
+    /**
+     * Creates a factory whose stocks are protected by their monitor
+     */
+    public Factory() {
+        this(false);
+    }
+
+    /**
+     * Creates a factory
+     * @param lockFree whether the stocks are LockFreeStocks instead of monitors
+     */
+    public Factory(boolean lockFree) {
+        this(lockFree, 1);
+    }
+
+    /**
+     * Creates a factory whose workshops transform items in batches
+     * @param lockFree whether the stocks are LockFreeStocks instead of monitors
+     * @param batchSize how many items the workshops move at once; the intermediate stock
+     * holds one batch
+     */
+    public Factory(boolean lockFree, int batchSize) {
+        this(lockFree, batchSize, false);
+    }
+
+    /**
+     * Creates a factory
+     * @param lockFree whether the stocks are LockFreeStocks instead of monitors
+     * @param batchSize how many items the workshops move at once; the intermediate stock
+     * holds one batch
+     * @param sharedWork whether the workshops of a stage claim their work from a budget
+     * shared by the stage, instead of doing half of it each
+     */
+    public Factory(boolean lockFree, int batchSize, boolean sharedWork) {
+        // The output is bounded by the number of items, so that the buffers of the stocks are allocated once
+        pipeline = new Pipeline.Builder()
+                .lockFree(lockFree)
+                .batchSize(batchSize)
+                .sharedWork(sharedWork)
+                .source("input", NB_ITEMS_TO_TRANSFORM)
+                .stage(2)
+                .stock("intermediate", batchSize)
+                .stage(2)
+                .stock("output", NB_ITEMS_TO_TRANSFORM)
+                .build();
+        stockInput = pipeline.getStock(0);
+        stockIntermediate = pipeline.getStock(1);
+        stockOutput = pipeline.getStock(2);
+        workshop1 = pipeline.getWorkshop(0, 0);
+        workshop2 = pipeline.getWorkshop(0, 1);
+        workshop3 = pipeline.getWorkshop(1, 0);
+        workshop4 = pipeline.getWorkshop(1, 1);
+    }
 
     /**
      * Main entry point: proceed to operate the factory work of transformation
      */
     public void work() {
     	System.out.println("Starting factory work ...");
-    	long initialTime = System.currentTimeMillis();
-        workshop1.start();
-        workshop2.start();
-        workshop3.start();
-        workshop4.start();
-        try {
-            workshop1.join();
-            workshop2.join();
-            workshop3.join();
-            workshop4.join();
-        } catch (InterruptedException ignored) {}
+    	long elapsed = transform();
         stockInput.display();
    		stockOutput.display();
-   		System.out.println("... done ("+((double)(System.currentTimeMillis() - initialTime)/1000)+" second(s))");
+        System.out.println("Transformations per workshop: " + workshop1.getNbTransformed() + " "
+                + workshop2.getNbTransformed() + " " + workshop3.getNbTransformed() + " "
+                + workshop4.getNbTransformed());
+   		System.out.println("... done ("+((double)elapsed/1e9)+" second(s))");
+    }
+
+    /**
+     * Runs the workshops until they have done all their transformations, silently
+     * @return the elapsed time, in nanoseconds
+     */
+    public long transform() {
+        return pipeline.run();
     }
     
     /**
      * Entry point for the whole program
-     * @param args not used
+     * @param args "lockfree" to use LockFreeStocks instead of monitors, "shared" to share the
+     * work of each stage between its workshops, and/or a batch size
      */
     public static void main(String[] args) {
-    	new Factory().work();
+        boolean lockFree = false;
+        boolean sharedWork = false;
+        int batchSize = 1;
+        for (String arg : args) {
+            if (arg.equals("lockfree")) {
+                lockFree = true;
+            } else if (arg.equals("shared")) {
+                sharedWork = true;
+            } else {
+                batchSize = Integer.parseInt(arg);
+            }
+        }
+    	new Factory(lockFree, batchSize, sharedWork).work();
     }
 }
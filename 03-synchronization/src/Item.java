@@ -0,0 +1,72 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+/**
+ * Objects of class Item represent the items moved between stocks and transformed by
+ * the workshops. Items are created with the stock that initially holds them, then
+ * passed from stock to stock: transforming an item updates it in place, so the
+ * factory allocates nothing while it works.
+ */
+class Item {
+    /**
+     * Number of the item in its initial stock
+     */
+    private final int id;
+    /**
+     * Number of transformations applied to the item
+     */
+    private int nbTransformations;
+    /**
+     * Times of the first and of the last transformations, from System.nanoTime()
+     */
+    private long firstTransformationTime;
+    private long lastTransformationTime;
+
+    /**
+     * Creates a new Item object
+     * @param id its number
+     */
+    public Item(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Applies one transformation to the item
+     */
+    public void transform() {
+        long now = System.nanoTime();
+        if (nbTransformations == 0) {
+            firstTransformationTime = now;
+        }
+        lastTransformationTime = now;
+        nbTransformations++;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getNbTransformations() {
+        return nbTransformations;
+    }
+
+    /**
+     * @return the time between the first and the last transformations, in nanoseconds: how
+     * long the item took to go through the stocks between them
+     */
+    public long getLatency() {
+        return lastTransformationTime - firstTransformationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "item " + id + " (" + nbTransformations + " transformation(s))";
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stock whose ring buffer is shared without locks, instead of being protected by the
+ * monitor of the stock.
+ *
+ * As in MonitorStock, putSequence and getSequence count the items put and got, but they are
+ * AtomicLongs that workshops advance with compare-and-set. Each slot of the buffer also
+ * holds a sequence number telling which operation it expects: a put at sequence s
+ * waits for the slot to hold s (the item of the previous round was got), writes its
+ * item and sets it to s + 1; a get at sequence s waits for s + 1 (the item was written),
+ * takes the item and sets it to s + size, freeing the slot for the next round. A
+ * workshop that wins the compare-and-set on a cursor thus owns its slot, and the
+ * sequence of the slot publishes the item to the other side. A put also checks the
+ * capacity of the stock before advancing putSequence: advancing the cursor is the
+ * bounded increment of the number of items.
+ *
+ * put() and get() never block while the stock is neither full nor empty: concurrent
+ * workshops only retry their compare-and-set. A workshop that finds the stock full
+ * (or empty) registers itself as waiting, checks the stock again, and parks. Every
+ * successful put() then unparks one workshop waiting for an item, and every get()
+ * one workshop waiting for room, instead of waking all the threads as notifyAll() does.
+ *
+ * A waiting thread registers itself before checking the stock again, and a thread
+ * that changes the stock looks for waiting threads after the change: one of the two
+ * always sees the other, so no wake-up is lost. A woken thread may find that another
+ * one took the item (or the room) first: it then waits again. A thread that succeeds
+ * while others still wait passes the wake-up on if the stock is still not empty (or
+ * not full), so that a wake-up received by a thread that no longer needed it is not lost.
+ *
+ * park() returns at once while the interrupt status of the thread is set, so a thread
+ * clears it before parking again, and sets it back once its operation is done, as the
+ * monitor version does.
+ */
+class LockFreeStock implements Stock {
+    /**
+     * Items in the stock, at index sequence & mask
+     */
+    private final AtomicReferenceArray<Item> items;
+    /**
+     * Sequence expected by each slot: s for a put at s, s + 1 for a get at s
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    /**
+     * Number of items put in (got from) the stock since its creation
+     */
+    private final AtomicLong putSequence;
+    private final AtomicLong getSequence = new AtomicLong();
+    /**
+     * Maximal number of items permitted
+     */
+    private final int maxNbItems;
+    /**
+     * Name of the stock
+     */
+    private final String name;
+    /**
+     * Threads parked until an item is available
+     */
+    private final Queue<Thread> waitingForItems = new ConcurrentLinkedQueue<Thread>();
+    /**
+     * Threads parked until there is room for an item
+     */
+    private final Queue<Thread> waitingForRoom = new ConcurrentLinkedQueue<Thread>();
+
+    /**
+     * Creates a new LockFreeStock object. Its whole buffer is allocated at once, so its
+     * capacity must be bounded.
+     * @param name its name
+     * @param nbItems initial number of items, numbered from 0
+     * @param maxNbItems max number of items in this stock, at most 2^30
+     */
+    public LockFreeStock(String name, int nbItems, int maxNbItems) {
+        this.name = name;
+        // With a single slot, a freed slot (s + size) and a written one (s + 1) would look the same
+        int capacity = Stock.capacity(Math.max(2, Math.max(nbItems, maxNbItems)));
+        this.items = new AtomicReferenceArray<Item>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            if (i < nbItems) {
+                items.set(i, new Item(i));
+                sequences.set(i, i + 1);
+            } else {
+                sequences.set(i, i);
+            }
+        }
+        this.putSequence = new AtomicLong(nbItems);
+        this.maxNbItems = maxNbItems;
+    }
+
+    @Override
+    public void put(Item item) {
+        boolean interrupted = false;
+        while (!tryPut(item)) {
+            interrupted |= await(waitingForRoom, false);
+        }
+        wakeUp(waitingForItems);
+        if (!isFull()) {
+            wakeUp(waitingForRoom);
+        }
+        restoreInterrupt(interrupted);
+    }
+
+    @Override
+    public Item get() {
+        boolean interrupted = false;
+        Item item;
+        while ((item = tryGet()) == null) {
+            interrupted |= await(waitingForItems, true);
+        }
+        wakeUp(waitingForRoom);
+        if (!isEmpty()) {
+            wakeUp(waitingForItems);
+        }
+        restoreInterrupt(interrupted);
+        return item;
+    }
+
+    /**
+     * Adds several items, claiming all the slots available with a single compare-and-set
+     * and waking one waiting thread per group of items added rather than per item. If the
+     * stock has less room than n, the items are added as room becomes free.
+     * @param batch the items added, from index 0
+     * @param n the number of items added
+     */
+    @Override
+    public void putBatch(Item[] batch, int n) {
+        boolean interrupted = false;
+        int done = 0;
+        while (done < n) {
+            int count = tryPutBatch(batch, done, n - done);
+            if (count == 0) {
+                interrupted |= await(waitingForRoom, false);
+            } else {
+                done += count;
+                wakeUp(waitingForItems);
+            }
+        }
+        if (!isFull()) {
+            wakeUp(waitingForRoom);
+        }
+        restoreInterrupt(interrupted);
+    }
+
+    /**
+     * Removes (takes) the oldest items: waits for at least one item, then takes all the
+     * items available, up to max, with a single compare-and-set
+     * @param batch where the items removed are stored, from index 0
+     * @param max the maximal number of items removed, at most batch.length
+     * @return the number of items removed, at least 1
+     */
+    @Override
+    public int getBatch(Item[] batch, int max) {
+        boolean interrupted = false;
+        int count;
+        while ((count = tryGetBatch(batch, max)) == 0) {
+            interrupted |= await(waitingForItems, true);
+        }
+        wakeUp(waitingForRoom);
+        if (!isEmpty()) {
+            wakeUp(waitingForItems);
+        }
+        restoreInterrupt(interrupted);
+        return count;
+    }
+
+    /**
+     * @return false if the stock is full
+     */
+    private boolean tryPut(Item item) {
+        for (;;) {
+            long sequence = putSequence.get();
+            int index = (int) sequence & mask;
+            long expected = sequences.get(index);
+            if (expected < sequence || sequence - getSequence.get() >= maxNbItems) {
+                // The item of the previous round is still being got, or the capacity is reached
+                return false;
+            }
+            if (expected == sequence && putSequence.compareAndSet(sequence, sequence + 1)) {
+                items.set(index, item);
+                sequences.set(index, sequence + 1);
+                return true;
+            }
+            // Another workshop put an item at this sequence first
+        }
+    }
+
+    /**
+     * @return the item got, null if the stock is empty
+     */
+    private Item tryGet() {
+        for (;;) {
+            long sequence = getSequence.get();
+            int index = (int) sequence & mask;
+            long expected = sequences.get(index);
+            if (expected < sequence + 1) {
+                // The item is not written yet
+                return null;
+            }
+            if (expected == sequence + 1 && getSequence.compareAndSet(sequence, sequence + 1)) {
+                Item item = items.get(index);
+                items.set(index, null);
+                sequences.set(index, sequence + mask + 1);
+                return item;
+            }
+            // Another workshop got the item at this sequence first
+        }
+    }
+
+    /**
+     * Puts as many of the n items from batch[from] as there are free slots in a row
+     * @return the number of items put, 0 if the stock is full
+     */
+    private int tryPutBatch(Item[] batch, int from, int n) {
+        for (;;) {
+            long sequence = putSequence.get();
+            long room = maxNbItems - (sequence - getSequence.get());
+            int count = 0;
+            while (count < n && count < room && sequences.get((int) (sequence + count) & mask) == sequence + count) {
+                count++;
+            }
+            if (count == 0) {
+                if (room > 0 && sequences.get((int) sequence & mask) > sequence) {
+                    // Another workshop put an item at this sequence first
+                    continue;
+                }
+                return 0;
+            }
+            if (putSequence.compareAndSet(sequence, sequence + count)) {
+                for (int i = 0; i < count; i++) {
+                    int index = (int) (sequence + i) & mask;
+                    items.set(index, batch[from + i]);
+                    sequences.set(index, sequence + i + 1);
+                }
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Gets up to max items, as many as are written in a row
+     * @return the number of items got, 0 if the stock is empty
+     */
+    private int tryGetBatch(Item[] batch, int max) {
+        for (;;) {
+            long sequence = getSequence.get();
+            int count = 0;
+            while (count < max && sequences.get((int) (sequence + count) & mask) == sequence + count + 1) {
+                count++;
+            }
+            if (count == 0) {
+                if (sequences.get((int) sequence & mask) > sequence + 1) {
+                    // Another workshop got the item at this sequence first
+                    continue;
+                }
+                return 0;
+            }
+            if (getSequence.compareAndSet(sequence, sequence + count)) {
+                for (int i = 0; i < count; i++) {
+                    int index = (int) (sequence + i) & mask;
+                    batch[i] = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, sequence + i + mask + 1);
+                }
+                return count;
+            }
+        }
+    }
+
+    private boolean isFull() {
+        long sequence = putSequence.get();
+        return sequences.get((int) sequence & mask) < sequence || sequence - getSequence.get() >= maxNbItems;
+    }
+
+    private boolean isEmpty() {
+        long sequence = getSequence.get();
+        return sequences.get((int) sequence & mask) < sequence + 1;
+    }
+
+    /**
+     * Parks the current thread until the stock may have an item (or room for one)
+     * @param waiting the threads waiting for the same condition
+     * @param forItems true to wait for an item, false to wait for room
+     * @return true if the thread was interrupted, whose interrupt status is then cleared
+     */
+    private boolean await(Queue<Thread> waiting, boolean forItems) {
+        Thread current = Thread.currentThread();
+        waiting.add(current);
+        if (forItems ? isEmpty() : isFull()) {
+            LockSupport.park(this);
+        }
+        // No-op if the thread was woken by another one, which removed it
+        waiting.remove(current);
+        // Otherwise the next park() would return at once, and the thread would spin
+        return Thread.interrupted();
+    }
+
+    /**
+     * Sets the interrupt status of the current thread back once the operation is done, if a
+     * wait was interrupted
+     */
+    private static void restoreInterrupt(boolean interrupted) {
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Unparks one of the waiting threads, if any
+     */
+    private static void wakeUp(Queue<Thread> waiting) {
+        if (!waiting.isEmpty()) {
+            Thread thread = waiting.poll();
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    @Override
+    public int getNbItems() {
+        long got = getSequence.get();
+        return (int) (putSequence.get() - got);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Unit test for class LockFreeStock
+     * @param args not used
+     */
+    static public void main(String[] args) {
+        Stock stock = new LockFreeStock("test", 5, 8);
+        Item item = stock.get();
+        stock.display();
+        stock.put(item);
+        stock.display();
+        System.out.println(stock.get() + " got after " + item + " was put back");
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ * 
+ * Exercise #2: an introduction to threads and synchronization in Java
+ * 
+ * Do not forget to indicate with comments inside the code the 
+ * modifications you have made and what problems they fix or 
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+/**
+ * Objects of class MonitorStock represent a set of items, kept in FIFO order.
+ *
+ * Items are stored in a ring buffer whose size is a power of two, allocated with the
+ * stock: putSequence and getSequence count the items put and got since the creation
+ * of the stock, the next item is put at index putSequence modulo the size of the
+ * buffer and got at index getSequence modulo the size, and the stock contains
+ * putSequence - getSequence items. Moving an item therefore allocates nothing. The
+ * buffer only grows, by doubling, if an unbounded stock exceeds its initial size.
+ *
+ * This implementation protects the buffer with the monitor of the stock; see
+ * LockFreeStock for a version without locks.
+ */
+class MonitorStock implements Stock {
+    /**
+     * Size of the buffer allocated for stocks of unbounded or very large capacity
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * Items in the stock, at index sequence & (items.length - 1)
+	 */
+    private Item[] items;
+    /**
+     * Number of items put in the stock since its creation
+     */
+    private long putSequence;
+    /**
+     * Number of items got from the stock since its creation
+     */
+    private long getSequence;
+    /**
+     * Maximal number of items permitted
+     */
+    private final int maxNbItems;
+    /**
+     * Name of the stock
+     */
+    private final String name;
+
+    /**
+     * Creates a new MonitorStock object
+     * @param name its name
+     * @param nbItems initial number of items
+     */
+    public MonitorStock(String name, int nbItems) {
+        this(name, nbItems, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new MonitorStock object
+     * @param name its name
+     * @param nbItems initial number of items, numbered from 0
+     * @param maxNbItems max number of items in this stock
+     */
+    public MonitorStock(String name, int nbItems, int maxNbItems) {
+        this.name = name;
+        this.maxNbItems = maxNbItems;
+        this.items = new Item[Stock.capacity(Math.max(nbItems, Math.min(maxNbItems, DEFAULT_CAPACITY)))];
+        for (int i = 0; i < nbItems; i++) {
+            items[i] = new Item(i);
+        }
+        this.putSequence = nbItems;
+    }
+
+    @Override
+    public synchronized void put(Item item) {
+        boolean interrupted = false;
+        while (putSequence - getSequence >= maxNbItems) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (putSequence - getSequence == items.length) {
+            grow();
+        }
+        items[(int) putSequence & (items.length - 1)] = item;
+        putSequence++;
+        //display();
+        notifyAll();
+        restoreInterrupt(interrupted);
+    }
+
+    @Override
+    public synchronized Item get() {
+        boolean interrupted = false;
+        while (putSequence - getSequence <= 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        int index = (int) getSequence & (items.length - 1);
+        Item item = items[index];
+        items[index] = null;
+        getSequence++;
+        //display();
+        notifyAll();
+        restoreInterrupt(interrupted);
+        return item;
+    }
+
+    /**
+     * Adds several items, waking the waiting threads once per group of items added rather than
+     * once per item. If the stock has less room than n, the items are added as room becomes free.
+     * @param batch the items added, from index 0
+     * @param n the number of items added
+     */
+    @Override
+    public synchronized void putBatch(Item[] batch, int n) {
+        boolean interrupted = false;
+        int done = 0;
+        while (done < n) {
+            while (putSequence - getSequence >= maxNbItems) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            int count = (int) Math.min(n - done, maxNbItems - (putSequence - getSequence));
+            while (putSequence - getSequence + count > items.length) {
+                grow();
+            }
+            for (int i = 0; i < count; i++) {
+                items[(int) putSequence & (items.length - 1)] = batch[done + i];
+                putSequence++;
+            }
+            done += count;
+            notifyAll();
+        }
+        restoreInterrupt(interrupted);
+    }
+
+    /**
+     * Removes (takes) the oldest items: waits for at least one item, then takes all the
+     * items available, up to max, waking the waiting threads once
+     * @param batch where the items removed are stored, from index 0
+     * @param max the maximal number of items removed, at most batch.length
+     * @return the number of items removed, at least 1
+     */
+    @Override
+    public synchronized int getBatch(Item[] batch, int max) {
+        boolean interrupted = false;
+        while (putSequence - getSequence <= 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        int count = (int) Math.min(max, putSequence - getSequence);
+        for (int i = 0; i < count; i++) {
+            int index = (int) getSequence & (items.length - 1);
+            batch[i] = items[index];
+            items[index] = null;
+            getSequence++;
+        }
+        notifyAll();
+        restoreInterrupt(interrupted);
+        return count;
+    }
+
+    /**
+     * Doubles the size of the buffer, keeping the items at their sequence modulo the new size
+     */
+    private void grow() {
+        Item[] grown = new Item[Stock.capacity(items.length + 1)];
+        for (long sequence = getSequence; sequence < putSequence; sequence++) {
+            grown[(int) sequence & (grown.length - 1)] = items[(int) sequence & (items.length - 1)];
+        }
+        items = grown;
+    }
+
+    /**
+     * Sets the interrupt status of the current thread back once the operation is done, if a
+     * wait was interrupted
+     */
+    private static void restoreInterrupt(boolean interrupted) {
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized int getNbItems() {
+        return (int) (putSequence - getSequence);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Unit test for class MonitorStock
+     * @param args Non utilise
+     */
+    static public void main(String[] args) {
+        Stock stock = new MonitorStock("test", 5);
+        Item item = stock.get();
+        stock.display();
+        stock.put(item);
+        stock.display();
+        System.out.println(stock.get() + " got after " + item + " was put back");
+    }
+}
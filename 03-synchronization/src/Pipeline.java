@@ -0,0 +1,315 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Objects of class Pipeline represent a production line: a source stock of items, then
+ * stages of workshops separated by stocks. The workshops of a stage all get their items
+ * from the stock before the stage (fan-out) and all put them in the stock after it
+ * (fan-in), so each stage can have its own parallelism, and each stock its own capacity.
+ *
+ * Pipelines are described with a Builder, which creates and wires the stocks and the
+ * workshops, for instance for the two stages of the Factory:
+ * <pre>
+ * new Pipeline.Builder()
+ *     .source("input", 10000)
+ *     .stage(2, Item::transform)
+ *     .stock("intermediate", 1)
+ *     .stage(2, Item::transform)
+ *     .stock("output", 10000)
+ *     .build();
+ * </pre>
+ * Every item goes through every stage: each stage does as many transformations as
+ * there are items in the source, split evenly between its workshops or claimed from a
+ * budget shared by them. A pipeline runs once, since its workshops are threads.
+ */
+class Pipeline {
+    /**
+     * Largest capacity of a stock whose buffer is allocated at once: the source, and every
+     * stock of a lock-free pipeline
+     */
+    static final int MAX_ALLOCATED_CAPACITY = 1 << 30;
+    /**
+     * Stocks, from the source to the output
+     */
+    private final List<Stock> stocks;
+    /**
+     * Workshops of each stage; stage i moves items from stock i to stock i + 1
+     */
+    private final List<Workshop[]> stages;
+
+    private Pipeline(List<Stock> stocks, List<Workshop[]> stages) {
+        this.stocks = stocks;
+        this.stages = stages;
+    }
+
+    /**
+     * Runs the workshops of all the stages until they have done all their transformations.
+     * If the calling thread is interrupted while waiting for them, run() returns at once with
+     * its interrupt status set: the time is then partial, and the workshops keep running.
+     * @return the elapsed time, in nanoseconds
+     */
+    public long run() {
+        long initialTime = System.nanoTime();
+        for (Workshop[] stage : stages) {
+            for (Workshop workshop : stage) {
+                workshop.start();
+            }
+        }
+        try {
+            for (Workshop[] stage : stages) {
+                for (Workshop workshop : stage) {
+                    workshop.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - initialTime;
+    }
+
+    public int getNbStocks() {
+        return stocks.size();
+    }
+
+    /**
+     * @param index 0 for the source, getNbStocks() - 1 for the output
+     */
+    public Stock getStock(int index) {
+        return stocks.get(index);
+    }
+
+    public int getNbStages() {
+        return stages.size();
+    }
+
+    /**
+     * @return the number of workshops of a stage
+     */
+    public int getParallelism(int stage) {
+        return stages.get(stage).length;
+    }
+
+    public Workshop getWorkshop(int stage, int index) {
+        return stages.get(stage)[index];
+    }
+
+    /**
+     * Display the status of the stocks, and how many transformations each workshop did
+     */
+    public void display() {
+        for (Stock stock : stocks) {
+            stock.display();
+        }
+        for (int s = 0; s < stages.size(); s++) {
+            StringBuilder line = new StringBuilder("Transformations per workshop of stage " + (s + 1) + ":");
+            for (Workshop workshop : stages.get(s)) {
+                line.append(' ').append(workshop.getNbTransformed());
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Builder of pipelines: a source, then stages and stocks in alternation, ending with a stock
+     */
+    static class Builder {
+        private boolean lockFree;
+        private int batchSize = 1;
+        private boolean sharedWork;
+
+        private final List<String> stockNames = new ArrayList<String>();
+        private final List<Integer> capacities = new ArrayList<Integer>();
+        private int nbItems;
+        private final List<Integer> parallelisms = new ArrayList<Integer>();
+        private final List<Consumer<Item>> transformations = new ArrayList<Consumer<Item>>();
+
+        /**
+         * @param lockFree whether the stocks are LockFreeStocks instead of monitors; their
+         * buffers are allocated at once, so their capacities must be at most 2^30
+         */
+        public Builder lockFree(boolean lockFree) {
+            this.lockFree = lockFree;
+            return this;
+        }
+
+        /**
+         * @param batchSize how many items the workshops move at once
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("The batch size must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param sharedWork whether the workshops of a stage claim their work from a budget
+         * shared by the stage, instead of each doing an equal share
+         */
+        public Builder sharedWork(boolean sharedWork) {
+            this.sharedWork = sharedWork;
+            return this;
+        }
+
+        /**
+         * Starts the pipeline with a stock holding all the items to transform
+         * @param name its name
+         * @param nbItems number of items, which is also its capacity, at most 2^30
+         */
+        public Builder source(String name, int nbItems) {
+            if (!stockNames.isEmpty()) {
+                throw new IllegalArgumentException("The pipeline has a single source, at its start");
+            }
+            if (nbItems < 0 || nbItems > MAX_ALLOCATED_CAPACITY) {
+                throw new IllegalArgumentException("The source must hold between 0 and 2^30 items: " + nbItems);
+            }
+            stockNames.add(name);
+            capacities.add(nbItems);
+            this.nbItems = nbItems;
+            return this;
+        }
+
+        /**
+         * Adds a stage whose workshops apply Item::transform
+         * @param parallelism number of workshops of the stage
+         */
+        public Builder stage(int parallelism) {
+            return stage(parallelism, Item::transform);
+        }
+
+        /**
+         * Adds a stage, after the source or a stock
+         * @param parallelism number of workshops of the stage
+         * @param transformation what the workshops do to each item
+         */
+        public Builder stage(int parallelism, Consumer<Item> transformation) {
+            if (stockNames.isEmpty()) {
+                throw new IllegalArgumentException("The pipeline must start with a source");
+            }
+            if (parallelisms.size() == stockNames.size()) {
+                throw new IllegalArgumentException("Two stages must be separated by a stock");
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("A stage needs at least one workshop");
+            }
+            parallelisms.add(parallelism);
+            transformations.add(transformation);
+            return this;
+        }
+
+        /**
+         * Adds a stock, after a stage
+         * @param name its name
+         * @param capacity max number of items in this stock, at least 1
+         */
+        public Builder stock(String name, int capacity) {
+            if (parallelisms.size() != stockNames.size()) {
+                throw new IllegalArgumentException("Two stocks must be separated by a stage");
+            }
+            if (capacity < 1) {
+                // Nothing could ever be put in the stock, and the pipeline would wait forever
+                throw new IllegalArgumentException("The capacity of stock " + name + " must be positive: " + capacity);
+            }
+            stockNames.add(name);
+            capacities.add(capacity);
+            return this;
+        }
+
+        /**
+         * Creates the stocks and the workshops
+         * @return the pipeline, ready to run
+         */
+        public Pipeline build() {
+            if (parallelisms.isEmpty() || parallelisms.size() == stockNames.size()) {
+                throw new IllegalArgumentException("The pipeline must have a stage and end with a stock");
+            }
+            for (int i = 0; lockFree && i < capacities.size(); i++) {
+                if (capacities.get(i) > MAX_ALLOCATED_CAPACITY) {
+                    throw new IllegalArgumentException("The capacity of lock-free stock " + stockNames.get(i)
+                            + " must be at most 2^30: " + capacities.get(i));
+                }
+            }
+            List<Stock> stocks = new ArrayList<Stock>();
+            for (int i = 0; i < stockNames.size(); i++) {
+                stocks.add(newStock(stockNames.get(i), i == 0 ? nbItems : 0, capacities.get(i)));
+            }
+            List<Workshop[]> stages = new ArrayList<Workshop[]>();
+            for (int s = 0; s < parallelisms.size(); s++) {
+                int parallelism = parallelisms.get(s);
+                WorkBudget shared = new WorkBudget(nbItems);
+                Workshop[] workshops = new Workshop[parallelism];
+                for (int w = 0; w < parallelism; w++) {
+                    // Without sharing, the first workshops do one more transformation if the items do not split evenly
+                    WorkBudget budget = sharedWork ? shared
+                            : new WorkBudget(nbItems / parallelism + (w < nbItems % parallelism ? 1 : 0));
+                    workshops[w] = new Workshop(stocks.get(s), stocks.get(s + 1), budget, batchSize,
+                            transformations.get(s));
+                }
+                stages.add(workshops);
+            }
+            return new Pipeline(stocks, stages);
+        }
+
+        private Stock newStock(String name, int nbItems, int maxNbItems) {
+            return lockFree ? new LockFreeStock(name, nbItems, maxNbItems)
+                    : new MonitorStock(name, nbItems, maxNbItems);
+        }
+    }
+
+    /**
+     * Runs a pipeline of Factory.NB_ITEMS_TO_TRANSFORM items
+     * @param args "lockfree", "shared", "batch=N" (1 by default), "capacity=N" for the
+     * stocks between stages (the batch size by default), then the number of workshops of
+     * each stage (2 2 by default, the stages of the Factory)
+     */
+    public static void main(String[] args) {
+        Builder builder = new Builder();
+        int batchSize = 1;
+        int capacity = 0;
+        List<Integer> parallelisms = new ArrayList<Integer>();
+        for (String arg : args) {
+            if (arg.equals("lockfree")) {
+                builder.lockFree(true);
+            } else if (arg.equals("shared")) {
+                builder.sharedWork(true);
+            } else if (arg.startsWith("batch=")) {
+                batchSize = Integer.parseInt(arg.substring("batch=".length()));
+            } else if (arg.startsWith("capacity=")) {
+                capacity = Integer.parseInt(arg.substring("capacity=".length()));
+            } else {
+                parallelisms.add(Integer.parseInt(arg));
+            }
+        }
+        if (parallelisms.isEmpty()) {
+            parallelisms.add(2);
+            parallelisms.add(2);
+        }
+        int nbItems = Factory.NB_ITEMS_TO_TRANSFORM;
+        builder.batchSize(batchSize).source("input", nbItems);
+        for (int s = 0; s < parallelisms.size(); s++) {
+            builder.stage(parallelisms.get(s));
+            if (s + 1 < parallelisms.size()) {
+                builder.stock("stock" + (s + 1), capacity > 0 ? capacity : batchSize);
+            } else {
+                builder.stock("output", nbItems);
+            }
+        }
+        Pipeline pipeline = builder.build();
+        System.out.println("Starting pipeline work ...");
+        long elapsed = pipeline.run();
+        pipeline.display();
+        System.out.println("... done (" + ((double) elapsed / 1e9) + " second(s))");
+    }
+}
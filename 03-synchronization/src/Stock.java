@@ -1,99 +1,74 @@
 /*
  * Operating Systems - Universite de Neuchatel
- * 
+ *
  * Exercise #2: an introduction to threads and synchronization in Java
- * 
- * Do not forget to indicate with comments inside the code the 
- * modifications you have made and what problems they fix or 
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
  * prevent, with references to the questions of the subject (Q1, Q2, etc.)
  */
 
 /**
- * Objects of class Stock represent a set of items. Items are not stored effectively,
- * only a counter is used to represent how many items are available.
- * 
- * It could be possible to use a more realistic queue (FIFO) for the Stock representation.
- * This is left as an exercise for home work. *
+ * A stock of items, kept in FIFO order and shared by the workshops that put items in it
+ * and get items from it. A put waits while the stock is full, a get while it is empty.
+ *
+ * MonitorStock protects its items with its monitor, LockFreeStock shares them without
+ * locks. In both, waiting is not interrupted: a workshop interrupted while it waits keeps
+ * waiting, and its interrupt status is set back once the operation is done.
  */
-class Stock {
-	/**
-	 * Amount of items
-	 */
-    private int nbItems;
-    /**
-     * Maximal number of items permitted
-     */
-    private final int maxNbItems;
+interface Stock {
+
     /**
-     * Name of the stock
+     * Adds an item
+     * @param item the item added
      */
-    private String name;
+    void put(Item item);
 
     /**
-     * Creates a new Stock object
-     * @param name its name
-     * @param nbItems initial number of items
+     * Removes (takes) the oldest item
+     * @return the item removed
      */
-    public Stock(String name, int nbItems) {
-        this(name, nbItems, Integer.MAX_VALUE);
-    }
+    Item get();
 
     /**
-     * Creates a new Stock object
-     * @param name its name
-     * @param nbItems initial number of items
-     * @param maxNbItems max number of items in this stock
+     * Adds several items. If the stock has less room than n, the items are added as room
+     * becomes free.
+     * @param batch the items added, from index 0
+     * @param n the number of items added
      */
-    public Stock(String name, int nbItems, int maxNbItems) {
-        this.nbItems = nbItems;
-        this.name = name;
-        this.maxNbItems = maxNbItems;
-    }
+    void putBatch(Item[] batch, int n);
 
     /**
-     * Adds an item
+     * Removes (takes) the oldest items: waits for at least one item, then takes all the
+     * items available, up to max
+     * @param batch where the items removed are stored, from index 0
+     * @param max the maximal number of items removed, at most batch.length
+     * @return the number of items removed, at least 1
      */
-    public synchronized void put() {
-        while (nbItems >= maxNbItems) {
-            try {
-                wait();
-            } catch (InterruptedException ignored) {}
-        }
-        nbItems++;
-        //display();
-        notifyAll();
-    }
+    int getBatch(Item[] batch, int max);
 
     /**
-     * Removes (takes) an item
+     * @return the number of items currently in the stock
      */
-    public synchronized void get() {
-        while (nbItems <= 0) {
-            try {
-                wait();
-            } catch (InterruptedException ignored) {}
-        }
-        nbItems--;
-        //display();
-        notifyAll();
-    }
+    int getNbItems();
+
+    String getName();
 
     /**
      * Display the stock status
      */
-    public void display() {
-        System.out.println(Thread.currentThread().getName() + ": The stock " + name + " contains " + nbItems + " item(s).");
+    default void display() {
+        System.out.println(Thread.currentThread().getName() + ": The stock " + getName() + " contains " + getNbItems() + " item(s).");
     }
 
     /**
-     * Unit test for class Stock
-     * @param args Non utilise
+     * @return the smallest power of two at least equal to n, the size of the buffer of a
+     * stock of n items
      */
-    static public void main(String[] args) {
-        Stock stock = new Stock("test", 5);
-        stock.put();
-        stock.display();
-        stock.get();
-        stock.display();
+    static int capacity(int n) {
+        if (n > 1 << 30) {
+            throw new IllegalArgumentException("Capacity too large: " + n);
+        }
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+import java.util.Arrays;
+
+/**
+ * Compares the factory with monitor stocks and with LockFreeStocks, moving items one by
+ * one or in batches.
+ *
+ * Each round runs a new factory of each configuration, alternating the configurations so
+ * that all see the same state of the machine, after a few rounds of warm-up. The factory
+ * moves NB_ITEMS_TO_TRANSFORM items through two stages. One by one, that is two get()
+ * and two put() per item, and the intermediate stock holds a single item, so its
+ * workshops contend for it on every transfer. In batches, the synchronization is paid
+ * once per batch, but an item waits for the other items of its batch before moving on:
+ * the latency of an item, from its transformation by the first stage to its
+ * transformation by the second, shows this trade-off.
+ */
+class StockBenchmark {
+    private static final int WARM_UP = 5;
+    private static final String[] KINDS = {"monitor", "lockfree"};
+    private static final int[] BATCH_SIZES = {1, 4, 16, 64};
+
+    /**
+     * Entry point of the benchmark
+     * @param args number of measured rounds (20 by default)
+     */
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int configurations = KINDS.length * BATCH_SIZES.length;
+        long[][] times = new long[configurations][rounds];
+        long[][] medianLatencies = new long[configurations][rounds];
+        long[][] tailLatencies = new long[configurations][rounds];
+        long[] latencies = new long[Factory.NB_ITEMS_TO_TRANSFORM];
+        for (int round = -WARM_UP; round < rounds; round++) {
+            for (int c = 0; c < configurations; c++) {
+                String kind = KINDS[c / BATCH_SIZES.length];
+                int batchSize = BATCH_SIZES[c % BATCH_SIZES.length];
+                Factory factory = new Factory(kind.equals("lockfree"), batchSize);
+                long elapsed = factory.transform();
+                check(kind, factory.stockOutput, latencies);
+                if (round >= 0) {
+                    Arrays.sort(latencies);
+                    times[c][round] = elapsed;
+                    medianLatencies[c][round] = latencies[latencies.length / 2];
+                    tailLatencies[c][round] = latencies[latencies.length * 99 / 100];
+                }
+            }
+        }
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processor(s), "
+                + Factory.NB_ITEMS_TO_TRANSFORM + " items, " + rounds + " rounds, medians over the rounds");
+        System.out.printf("%-10s %6s %12s %12s %10s %14s %14s%n", "stock", "batch", "min (ms)", "median (ms)",
+                "ns/item", "latency (us)", "p99 lat. (us)");
+        for (int c = 0; c < configurations; c++) {
+            Arrays.sort(times[c]);
+            Arrays.sort(medianLatencies[c]);
+            Arrays.sort(tailLatencies[c]);
+            long median = times[c][rounds / 2];
+            System.out.printf("%-10s %6d %12.3f %12.3f %10.1f %14.1f %14.1f%n",
+                    KINDS[c / BATCH_SIZES.length], BATCH_SIZES[c % BATCH_SIZES.length],
+                    times[c][0] / 1e6, median / 1e6, (double) median / Factory.NB_ITEMS_TO_TRANSFORM,
+                    medianLatencies[c][rounds / 2] / 1e3, tailLatencies[c][rounds / 2] / 1e3);
+        }
+    }
+
+    /**
+     * Checks that each item reached the output stock exactly once, transformed by both stages
+     * @param latencies where the latencies of the items are stored
+     */
+    private static void check(String kind, Stock output, long[] latencies) {
+        if (output.getNbItems() != Factory.NB_ITEMS_TO_TRANSFORM) {
+            throw new IllegalStateException(kind + ": " + output.getNbItems()
+                    + " items transformed instead of " + Factory.NB_ITEMS_TO_TRANSFORM);
+        }
+        boolean[] seen = new boolean[Factory.NB_ITEMS_TO_TRANSFORM];
+        for (int i = 0; i < seen.length; i++) {
+            Item item = output.get();
+            if (seen[item.getId()] || item.getNbTransformations() != 2) {
+                throw new IllegalStateException(kind + ": unexpected " + item);
+            }
+            seen[item.getId()] = true;
+            latencies[i] = item.getLatency();
+        }
+    }
+}
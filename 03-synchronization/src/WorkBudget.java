@@ -0,0 +1,61 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Objects of class WorkBudget represent a number of transformations left to do, from
+ * which workshops claim their work.
+ *
+ * A budget given to a single workshop is a fixed quota. A budget shared by the workshops
+ * of a stage lets each of them claim work as long as some is left, so a fast workshop
+ * does the transformations that a slow one would otherwise do after it, and the stage
+ * ends when their total capacity has done all the work rather than when the slowest
+ * one has done its share.
+ */
+class WorkBudget {
+    /**
+     * Number of transformations not claimed yet
+     */
+    private final AtomicInteger remaining;
+
+    /**
+     * Creates a new WorkBudget object
+     * @param nbTransform number of transformations to do
+     */
+    public WorkBudget(int nbTransform) {
+        this.remaining = new AtomicInteger(nbTransform);
+    }
+
+    /**
+     * Claims up to max transformations
+     * @param max the maximal number of transformations claimed, at least 1
+     * @return the number of transformations claimed, 0 once all the work is claimed
+     */
+    public int claim(int max) {
+        for (;;) {
+            int left = remaining.get();
+            if (left <= 0) {
+                return 0;
+            }
+            int claimed = Math.min(max, left);
+            if (remaining.compareAndSet(left, left - claimed)) {
+                return claimed;
+            }
+        }
+    }
+
+    /**
+     * @return the number of transformations not claimed yet
+     */
+    public int getRemaining() {
+        return remaining.get();
+    }
+}
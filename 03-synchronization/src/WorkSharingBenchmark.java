@@ -0,0 +1,72 @@
+/*
+ * Operating Systems - Universite de Neuchatel
+ *
+ * Exercise #2: an introduction to threads and synchronization in Java
+ *
+ * Do not forget to indicate with comments inside the code the
+ * modifications you have made and what problems they fix or
+ * prevent, with references to the questions of the subject (Q1, Q2, etc.)
+ */
+
+import java.util.Arrays;
+
+/**
+ * Compares fixed quotas with work shared by the workshops of each stage, when one
+ * workshop of the first stage is slower than the others.
+ *
+ * With quotas, the slow workshop does half of the first stage, and the factory ends
+ * long after its sibling has done its half and stopped. With a shared budget, the fast
+ * workshop keeps claiming work while the slow one is busy, and the factory ends when
+ * their total capacity has done the work.
+ */
+class WorkSharingBenchmark {
+    private static final int WARM_UP = 1;
+    /**
+     * Time spent by the slow workshop on each transformation, in nanoseconds
+     */
+    private static final long SLOW_TRANSFORMATION_TIME = 200000;
+
+    /**
+     * Entry point of the benchmark
+     * @param args number of measured rounds (5 by default), "lockfree" to use LockFreeStocks
+     */
+    public static void main(String[] args) {
+        int rounds = 5;
+        boolean lockFree = false;
+        for (String arg : args) {
+            if (arg.equals("lockfree")) {
+                lockFree = true;
+            } else {
+                rounds = Integer.parseInt(arg);
+            }
+        }
+        String[] modes = {"quotas", "shared"};
+        long[][] times = new long[modes.length][rounds];
+        int[][] slowShares = new int[modes.length][rounds];
+        for (int round = -WARM_UP; round < rounds; round++) {
+            for (int m = 0; m < modes.length; m++) {
+                Factory factory = new Factory(lockFree, 1, modes[m].equals("shared"));
+                factory.workshop1.setTransformationTime(SLOW_TRANSFORMATION_TIME);
+                long elapsed = factory.transform();
+                if (factory.stockOutput.getNbItems() != Factory.NB_ITEMS_TO_TRANSFORM) {
+                    throw new IllegalStateException(modes[m] + ": " + factory.stockOutput.getNbItems()
+                            + " items transformed instead of " + Factory.NB_ITEMS_TO_TRANSFORM);
+                }
+                if (round >= 0) {
+                    times[m][round] = elapsed;
+                    slowShares[m][round] = factory.workshop1.getNbTransformed();
+                }
+            }
+        }
+        System.out.println((lockFree ? "lock-free" : "monitor") + " stocks, " + Factory.NB_ITEMS_TO_TRANSFORM
+                + " items, slow workshop " + SLOW_TRANSFORMATION_TIME / 1000 + " us per item, " + rounds
+                + " rounds");
+        System.out.printf("%-8s %12s %12s %20s%n", "work", "min (ms)", "median (ms)", "slow workshop items");
+        for (int m = 0; m < modes.length; m++) {
+            Arrays.sort(times[m]);
+            Arrays.sort(slowShares[m]);
+            System.out.printf("%-8s %12.3f %12.3f %20d%n", modes[m], times[m][0] / 1e6,
+                    times[m][rounds / 2] / 1e6, slowShares[m][rounds / 2]);
+        }
+    }
+}
@@ -9,11 +9,16 @@
  *
  */
 
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
 /**
  * Objects that are instances of the Workshop class represent transformation
- * workshops. The principle is as follows: the call to transform() picks an element
- * from Stock A, waits for 100 ms, and puts an element to stock B. The work() method
- * runs nbTransform times the transform() method, nbTransform being set by the constructor.
+ * workshops. The principle is as follows: the call to transform() picks an item
+ * from Stock A, waits for 100 ms, transforms it, and puts it to stock B. The work() method
+ * runs the transform() method as long as it can claim transformations from its WorkBudget:
+ * either a quota of nbTransform set by the constructor, or a budget shared by the workshops
+ * of the same stage.
  */
 class Workshop extends Thread {
 
@@ -25,10 +30,26 @@ class Workshop extends Thread {
      * The stock where to put transformed items
      */
     private Stock B;
-    /** 
-     * Number of transformations when calling work().
+    /**
+     * Transformations left to do when calling work(), possibly shared with other workshops
+     */
+    private final WorkBudget budget;
+    /**
+     * Number of transformations done by this workshop
+     */
+    private int nbTransformed;
+    /**
+     * Time spent on each transformation, in nanoseconds, 0 for none
      */
-    private int nbTransform;
+    private long transformationTime;
+    /**
+     * Items got and put at once, 1 to move items one by one
+     */
+    private final Item[] batch;
+    /**
+     * Transformation applied to each item
+     */
+    private final Consumer<Item> transformation;
 
     /**
      * Constructs an instance of Workshop
@@ -37,26 +58,115 @@ class Workshop extends Thread {
      * @param nbTransfo How many transforms should be made
      */
     public Workshop(Stock A, Stock B, int nbTransfo) {
+        this(A, B, nbTransfo, 1);
+    }
+
+    /**
+     * Constructs an instance of Workshop that transforms items in batches
+     * @param A Initial stock
+     * @param B Destination stock
+     * @param nbTransfo How many transforms should be made
+     * @param batchSize How many items are got from A and put to B at once, at most
+     */
+    public Workshop(Stock A, Stock B, int nbTransfo, int batchSize) {
+        this(A, B, new WorkBudget(nbTransfo), batchSize);
+    }
+
+    /**
+     * Constructs an instance of Workshop that claims its work from a budget
+     * @param A Initial stock
+     * @param B Destination stock
+     * @param budget The transformations to do, possibly shared with other workshops
+     * @param batchSize How many items are got from A and put to B at once, at most
+     */
+    public Workshop(Stock A, Stock B, WorkBudget budget, int batchSize) {
+        this(A, B, budget, batchSize, Item::transform);
+    }
+
+    /**
+     * Constructs an instance of Workshop that applies a given transformation to the items
+     * @param A Initial stock
+     * @param B Destination stock
+     * @param budget The transformations to do, possibly shared with other workshops
+     * @param batchSize How many items are got from A and put to B at once, at most
+     * @param transformation What is done to each item, Item::transform by default
+     */
+    public Workshop(Stock A, Stock B, WorkBudget budget, int batchSize, Consumer<Item> transformation) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
         this.A = A;
         this.B = B;
-        this.nbTransform = nbTransfo;
+        this.budget = budget;
+        this.batch = new Item[batchSize];
+        this.transformation = transformation;
+    }
+
+    /**
+     * Makes each transformation take some time, as the commented sleep in transform() would
+     * @param nanos time spent on each transformation, in nanoseconds
+     */
+    public void setTransformationTime(long nanos) {
+        this.transformationTime = nanos;
+    }
+
+    /**
+     * @return the number of transformations done by this workshop
+     */
+    public int getNbTransformed() {
+        return nbTransformed;
+    }
+
+    private void spendTransformationTime() {
+        if (transformationTime > 0) {
+            LockSupport.parkNanos(transformationTime);
+        }
     }
 
     /**
      * Proceeds to a single transformation from an item of Stock A to an item of Stock B
      */
     public void transform() {
-        A.get();
+        Item item = A.get();
         //try { Thread.sleep(100); } catch(InterruptedException ignored) {}
-        B.put();
+        spendTransformationTime();
+        transformation.accept(item);
+        B.put(item);
+        nbTransformed++;
+    }
+
+    /**
+     * Proceeds to the transformation of a batch: gets the items available from Stock A, up to
+     * max, transforms them and puts them all to Stock B
+     * @param max the maximal number of items transformed, at most the batch size
+     * @return the number of items transformed
+     */
+    public int transformBatch(int max) {
+        int n = A.getBatch(batch, max);
+        for (int i = 0; i < n; i++) {
+            spendTransformationTime();
+            transformation.accept(batch[i]);
+        }
+        B.putBatch(batch, n);
+        nbTransformed += n;
+        return n;
     }
 
     /**
-     * Proceeds to nbTransform transformations
+     * Proceeds to transformations, one by one or in batches, until the budget is exhausted
      */
     public void work() {
-        for(; nbTransform > 0; nbTransform--)
-            transform();
+        int n;
+        while ((n = budget.claim(batch.length)) > 0) {
+            if (batch.length == 1) {
+                transform();
+            } else {
+                // Items of the claim may arrive in A over several batches
+                while (n > 0) {
+                    n -= transformBatch(n);
+                }
+            }
+        }
     }
 
     @Override
@@ -69,8 +179,8 @@ class Workshop extends Thread {
      * @param args not used
      */
     static public void main(String[] args) {
-        Stock stockInput = new Stock("input", 4);
-        Stock stockOutput = new Stock("output", 1);
+        Stock stockInput = new MonitorStock("input", 4);
+        Stock stockOutput = new MonitorStock("output", 1);
         new Workshop(stockInput, stockOutput, 2).work();
         stockInput.display();
         stockOutput.display();